@@ -0,0 +1,70 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.SpringApiTddApplication;
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.services.BookService;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without the web layer against its own embedded H2 database, so service
+ * benchmarks run through the same beans, transactions and caches as the API does.
+ */
+final class BenchmarkContexts {
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(SpringApiTddApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static ConfigurableApplicationContext startWeb(String... properties) {
+        return new SpringApplicationBuilder(SpringApiTddApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "logging.level.root=WARN", "server.port=0")
+                .properties(properties)
+                .run();
+    }
+
+    static ConfigurableApplicationContext startReactive(String... properties) {
+        return new SpringApplicationBuilder(SpringApiTddApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties("spring.r2dbc.url=r2dbc:h2:mem:///benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN", "server.port=0")
+                .properties(properties)
+                .run();
+    }
+
+    static void seedBooks(BookService bookService, int count) {
+        List<Book> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 1; i <= count; i++) {
+            batch.add(Book.builder().title("The Dark Knight " + i).author("Author " + (i % 100))
+                    .isbn("seed-" + i).build());
+            if (batch.size() == SEED_BATCH_SIZE || i == count) {
+                bookService.importBooks(batch);
+                batch = new ArrayList<>(SEED_BATCH_SIZE);
+            }
+        }
+    }
+}
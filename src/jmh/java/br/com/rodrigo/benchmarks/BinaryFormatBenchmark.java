@@ -0,0 +1,110 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.Setter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes one books page as JSON, CBOR and Smile, with mappers built the way the API builds
+ * its converters. Each trial also prints the plain and gzipped payload sizes to the benchmark log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"20", "100", "1000"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    Page<BookDTO> page;
+    byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = mapper(format);
+        List<BookDTO> books = new ArrayList<>(pageSize);
+        for (long i = 1; i <= pageSize; i++) {
+            books.add(BookDTO.builder().id(i).title("The Dark Knight " + i).author("Frank Miller").isbn("isbn-" + i).build());
+        }
+
+        page = new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000);
+        encoded = objectMapper.writeValueAsBytes(page);
+        System.out.printf("%s page of %d books: %d bytes, %d gzipped%n",
+                format, pageSize, encoded.length, gzip(objectMapper, page, encoded.length).length);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writeGzipped() throws IOException {
+        return gzip(objectMapper, page, encoded.length);
+    }
+
+    @Benchmark
+    public BookPage read() throws IOException {
+        return objectMapper.readValue(encoded, BookPage.class);
+    }
+
+    private static byte[] gzip(ObjectMapper objectMapper, Object value, int sizeHint) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, value);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static ObjectMapper mapper(String format) {
+        switch (format) {
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            default:
+                return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+
+    /** What a client decodes a page into: the content and the total, ignoring the paging metadata. */
+    @Getter
+    @Setter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class BookPage {
+        private List<BookDTO> content;
+        private long totalElements;
+    }
+}
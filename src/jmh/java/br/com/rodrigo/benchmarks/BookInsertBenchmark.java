@@ -0,0 +1,77 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.services.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts {@value #BATCH} books per operation, through JPA in one transaction and through the JDBC
+ * import path, to show what id generation costs each of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookInsertBenchmark {
+    private static final int BATCH = 500;
+
+    ConfigurableApplicationContext context;
+    BookRepository bookRepository;
+    BookService bookService;
+    TransactionTemplate transactionTemplate;
+    AtomicLong isbns = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start();
+        bookRepository = context.getBean(BookRepository.class);
+        bookService = context.getBean(BookService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Book> saveAll() {
+        return transactionTemplate.execute(status -> bookRepository.saveAll(newBooks()));
+    }
+
+    @Benchmark
+    public List<Book> importBooks() {
+        return bookService.importBooks(newBooks());
+    }
+
+    private List<Book> newBooks() {
+        List<Book> books = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            long n = isbns.incrementAndGet();
+            books.add(Book.builder().title("Benchmark Book " + n).author("Benchmark Author").isbn("insert-" + n).build());
+        }
+
+        return books;
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.services.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves and searches books through BookServiceImpl on an H2 database seeded with {@code books}
+ * rows, with and without the in-memory search index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    int books;
+
+    @Param({"true", "false"})
+    boolean searchIndex;
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+    AtomicLong isbns = new AtomicLong();
+    Pageable page = PageRequest.of(0, 20);
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start("library.search.index.enabled=" + searchIndex);
+        bookService = context.getBean(BookService.class);
+        BenchmarkContexts.seedBooks(bookService, books);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book save() {
+        long n = isbns.incrementAndGet();
+
+        return bookService.save(Book.builder().title("Benchmark Book " + n).author("Benchmark Author")
+                .isbn("bench-" + n).build());
+    }
+
+    @Benchmark
+    public Page<BookDTO> findByTitle() {
+        return bookService.find(Book.builder().title("knight 42").build(), page);
+    }
+
+    @Benchmark
+    public Page<BookDTO> findByAuthor() {
+        return bookService.find(Book.builder().author("author 7").build(), page);
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.services.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the loan endpoints over HTTP from more client threads than Tomcat's default pool of 200,
+ * with request handling on that pool or on virtual threads. The virtual mode needs the forked JVM
+ * to be JDK 21 or newer. Every client thread loans and returns its own book, so writes never
+ * collide on the already-loaned check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(400)
+public class LoanEndpointBenchmark {
+    private static final int BOOKS = 1000;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    ObjectMapper objectMapper = new ObjectMapper();
+    String baseUrl;
+    AtomicInteger clients = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Client {
+        String isbn;
+
+        @Setup
+        public void setup(LoanEndpointBenchmark benchmark) {
+            isbn = "seed-" + (benchmark.clients.incrementAndGet() % BOOKS + 1);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.startWeb("library.threads.virtual=" + virtualThreads);
+        BenchmarkContexts.seedBooks(context.getBean(BookService.class), BOOKS);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/loans";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listLoans(Client state) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?customer=customer&isbn=" + state.isbn
+                + "&page=0&size=20&count=none")).GET().build();
+
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int loanAndReturn(Client state) throws IOException, InterruptedException {
+        HttpRequest create = HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"isbn\":\"" + state.isbn + "\",\"customer\":\"customer\"}"))
+                .build();
+        JsonNode loan = objectMapper.readTree(client.send(create, HttpResponse.BodyHandlers.ofString()).body());
+
+        HttpRequest returns = HttpRequest.newBuilder(URI.create(baseUrl + "/returns"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"ids\":[" + loan.path("id").asLong() + "]}"))
+                .build();
+
+        return client.send(returns, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
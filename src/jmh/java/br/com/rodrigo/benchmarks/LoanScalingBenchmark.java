@@ -0,0 +1,108 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.services.BookService;
+import br.com.rodrigo.services.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loans and returns distinct books from 1, 2, 4 and all available threads, each thread on its own
+ * slice of the catalog, so no two threads ever want the same book. With one lock stripe every loan
+ * waits on the same lock; with the default 64 throughput should grow with the thread count until
+ * the database or the cores run out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanScalingBenchmark {
+    private static final int BOOKS_PER_THREAD = 64;
+    private static final int MAX_THREADS = 64;
+
+    @Param({"1", "64"})
+    int lockStripes;
+
+    ConfigurableApplicationContext context;
+    LoanService loanService;
+    List<Book> books;
+    AtomicInteger slices = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start("library.loans.lock-stripes=" + lockStripes);
+        loanService = context.getBean(LoanService.class);
+        BenchmarkContexts.seedBooks(context.getBean(BookService.class), BOOKS_PER_THREAD * MAX_THREADS);
+        books = context.getBean(BookRepository.class).findAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+        List<Book> books;
+        int next;
+
+        @Setup
+        public void setup(LoanScalingBenchmark benchmark) {
+            int slice = Math.floorMod(benchmark.slices.getAndIncrement(), MAX_THREADS);
+            books = benchmark.books.subList(slice * BOOKS_PER_THREAD, (slice + 1) * BOOKS_PER_THREAD);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Loan threads1(Slice slice) {
+        return loanAndReturn(slice);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Loan threads2(Slice slice) {
+        return loanAndReturn(slice);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Loan threads4(Slice slice) {
+        return loanAndReturn(slice);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Loan threadsMax(Slice slice) {
+        return loanAndReturn(slice);
+    }
+
+    private Loan loanAndReturn(Slice slice) {
+        Book book = slice.books.get(slice.next++ % BOOKS_PER_THREAD);
+        Loan loan = loanService.save(Loan.builder().book(book).customer("customer").loanDate(LocalDate.now()).build());
+        loan.setReturned(true);
+
+        return loanService.update(loan);
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.services.BookService;
+import br.com.rodrigo.services.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loans a book through LoanServiceImpl and returns it in the same invocation, so the next pass
+ * over the same book finds it available again. Half of the seeded books keep an active loan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    int books;
+
+    @Param({"true", "false"})
+    boolean activeIndex;
+
+    ConfigurableApplicationContext context;
+    LoanService loanService;
+    List<Book> available;
+    AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContexts.start("library.loans.active-index.enabled=" + activeIndex);
+        loanService = context.getBean(LoanService.class);
+        BenchmarkContexts.seedBooks(context.getBean(BookService.class), books);
+
+        available = new ArrayList<>(books / 2);
+        for (Book book : context.getBean(BookRepository.class).findAll()) {
+            if (book.getId() % 2 == 0) {
+                loanService.save(Loan.builder().book(book).customer("seed").loanDate(LocalDate.now()).build());
+            } else {
+                available.add(book);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Loan loanAndReturn() {
+        Book book = available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+        Loan loan = loanService.save(Loan.builder().book(book).customer("customer").loanDate(LocalDate.now()).build());
+        loan.setReturned(true);
+
+        return loanService.update(loan);
+    }
+}
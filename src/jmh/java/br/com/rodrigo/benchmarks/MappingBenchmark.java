@@ -0,0 +1,90 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.mappers.BookMapper;
+import br.com.rodrigo.mappers.BookMapperImpl;
+import br.com.rodrigo.mappers.LoanMapper;
+import br.com.rodrigo.mappers.LoanMapperImpl;
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Maps one page of entities to DTOs, the way the list endpoints do, with the reflective
+ * ModelMapper the controllers used before and with the generated MapStruct mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    ModelMapper modelMapper;
+    BookMapper bookMapper;
+    LoanMapper loanMapper;
+    List<Book> books;
+    List<Loan> loans;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapperImpl();
+        loanMapper = new LoanMapperImpl(bookMapper);
+        books = new ArrayList<>(pageSize);
+        loans = new ArrayList<>(pageSize);
+
+        for (long i = 1; i <= pageSize; i++) {
+            Book book = Book.builder().id(i).title("The Dark Knight " + i).author("Frank Miller").isbn("isbn-" + i).build();
+            books.add(book);
+            loans.add(Loan.builder().id(i).book(book).customer("customer-" + i).loanDate(LocalDate.now()).build());
+        }
+    }
+
+    @Benchmark
+    public List<BookDTO> bookPageWithModelMapper() {
+        return books.stream().map(book -> modelMapper.map(book, BookDTO.class)).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BookDTO> bookPageWithMapStruct() {
+        return books.stream().map(bookMapper::toDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loanPageWithModelMapper() {
+        return loans.stream().map(loan -> {
+            LoanDTO dto = modelMapper.map(loan, LoanDTO.class);
+            dto.setBookDTO(modelMapper.map(loan.getBook(), BookDTO.class));
+
+            return dto;
+        }).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loanPageWithMapStruct() {
+        return loans.stream().map(loanMapper::toDtoWithBook).collect(Collectors.toList());
+    }
+}
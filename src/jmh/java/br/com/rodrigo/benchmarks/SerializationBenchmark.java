@@ -0,0 +1,68 @@
+package br.com.rodrigo.benchmarks;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one listing response to JSON bytes with an ObjectMapper built the way Spring MVC builds
+ * its own, both as the default Page and as the count=none Slice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    Page<BookDTO> page;
+    Slice<BookDTO> slice;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<BookDTO> books = new ArrayList<>(pageSize);
+        for (long i = 1; i <= pageSize; i++) {
+            books.add(BookDTO.builder().id(i).title("The Dark Knight " + i).author("Frank Miller").isbn("isbn-" + i).build());
+        }
+
+        page = new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000);
+        slice = new SliceImpl<>(books, PageRequest.of(0, pageSize), true);
+    }
+
+    @Benchmark
+    public byte[] pageToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] sliceToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(slice);
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.rodrigo.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the same HTTP load against the servlet stack and the reactive (WebFlux + R2DBC) one. Books
+ * are seeded through the API, so both stacks start from the same data. Every client thread loans
+ * and returns its own book, so writes never collide on the already-loaned check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(400)
+public class StackComparisonBenchmark {
+    private static final int BOOKS = 1000;
+
+    @Param({"servlet", "reactive"})
+    String stack;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    ObjectMapper objectMapper = new ObjectMapper();
+    String baseUrl;
+    AtomicInteger clients = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Client {
+        String isbn;
+        String author;
+
+        @Setup
+        public void setup(StackComparisonBenchmark benchmark) {
+            int book = benchmark.clients.incrementAndGet() % BOOKS + 1;
+            isbn = "seed-" + book;
+            author = "Author%20" + (book % 100);
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        context = "reactive".equals(stack) ? BenchmarkContexts.startReactive() : BenchmarkContexts.startWeb();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        for (int i = 1; i <= BOOKS; i++) {
+            String book = "{\"title\":\"The Dark Knight " + i + "\",\"author\":\"Author " + (i % 100)
+                    + "\",\"isbn\":\"seed-" + i + "\"}";
+            client.send(post("/books", book), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findBooks(Client state) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/books?author=" + state.author
+                + "&page=0&size=20")).GET().build();
+
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int loanAndReturn(Client state) throws IOException, InterruptedException {
+        HttpRequest create = post("/loans", "{\"isbn\":\"" + state.isbn + "\",\"customer\":\"customer\"}");
+        JsonNode loan = objectMapper.readTree(client.send(create, HttpResponse.BodyHandlers.ofString()).body());
+
+        HttpRequest returned = HttpRequest.newBuilder(URI.create(baseUrl + "/loans/" + loan.path("id").asLong()))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"isReturned\":true}"))
+                .build();
+
+        return client.send(returned, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package br.com.rodrigo.DTOs;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -25,4 +26,7 @@ public class BookDTO implements Serializable {
     String author;
     @NotEmpty
     String isbn;
+    // only used to build ETags; the API never exposes or accepts it
+    @JsonIgnore
+    Long version;
 }
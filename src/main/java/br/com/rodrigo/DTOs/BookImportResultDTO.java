@@ -0,0 +1,23 @@
+package br.com.rodrigo.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+    private Long line;
+    private String isbn;
+    private Status status;
+    private List<String> errors;
+
+    public enum Status {
+        CREATED, DUPLICATED, INVALID
+    }
+}
@@ -14,4 +14,8 @@ public class LoanDTO {
     private String isbn;
     private String customer;
     private BookDTO bookDTO;
+
+    public LoanDTO(Long id, String customer, Long bookId, String title, String author, String isbn) {
+        this(id, isbn, customer, new BookDTO(bookId, title, author, isbn, null));
+    }
 }
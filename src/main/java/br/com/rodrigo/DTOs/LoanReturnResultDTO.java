@@ -0,0 +1,20 @@
+package br.com.rodrigo.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnResultDTO {
+    private Long id;
+    private String isbn;
+    private Status status;
+
+    public enum Status {
+        RETURNED, ALREADY_RETURNED, NOT_FOUND
+    }
+}
@@ -0,0 +1,71 @@
+package br.com.rodrigo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Adds a read replica next to the spring.datasource primary once {@code library.datasource.replica.jdbc-url}
+ * is set. The replica pool takes Hikari's settings under {@code library.datasource.replica}. Read-only
+ * transactions, which covers the services' query methods and Spring Data's own reads, are routed to it, and
+ * everything else stays on the primary.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "library.datasource.replica", name = "jdbc-url")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("library.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+
+        return dataSource;
+    }
+
+    // the pools are injected lazily: creating a DataSource bean makes Boot's DataSourceInitializer look up the
+    // primary DataSource, and that is the routing one below, which cannot exist before its targets otherwise
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Lazy @Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${library.datasource.replica.lag-query:}") String lagQuery,
+                                               @Value("${library.datasource.replica.max-lag:10s}") Duration maxLag) {
+        return new ReplicaLagMonitor(replica, lagQuery, maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Lazy @Qualifier("primaryDataSource") DataSource primary,
+                                 @Lazy @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor) {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primary, replica, lagMonitor);
+        routing.afterPropertiesSet();
+        // no constructor argument: the proxy reads the connection defaults once it is initialized, not before
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routing);
+
+        return dataSource;
+    }
+}
@@ -0,0 +1,67 @@
+package br.com.rodrigo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Decides whether the read replica may serve reads. Each check runs {@code library.datasource.replica.lag-query}
+ * on the replica, which must return its replication lag in seconds (on PostgreSQL, for instance,
+ * {@code select extract(epoch from now() - pg_last_xact_replay_timestamp())}); without one only the connection
+ * is validated. A replica further behind than {@code library.datasource.replica.max-lag}, or one that cannot be
+ * reached, is skipped until a later check finds it caught up.
+ */
+public class ReplicaLagMonitor implements MeterBinder, SmartInitializingSingleton {
+    public static final String LAG_METRIC = "library.datasource.replica.lag";
+    public static final String USABLE_METRIC = "library.datasource.replica.usable";
+
+    private JdbcTemplate replica;
+    private String lagQuery;
+    private Duration maxLag;
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        check();
+    }
+
+    @Scheduled(fixedDelayString = "${library.datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        try {
+            Double lag = StringUtils.hasText(lagQuery)
+                    ? replica.queryForObject(lagQuery, Double.class)
+                    : replica.execute((ConnectionCallback<Double>) connection -> connection.isValid(1) ? 0d : null);
+            lagSeconds = lag == null ? Double.NaN : lag;
+            usable = lag != null && lag * 1000 <= maxLag.toMillis();
+        } catch (DataAccessException ex) {
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(LAG_METRIC, this, monitor -> monitor.lagSeconds).baseUnit("seconds").register(registry);
+        Gauge.builder(USABLE_METRIC, this, monitor -> monitor.usable ? 1 : 0).register(registry);
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.rodrigo.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves each id sequence past the ids already in its table, so a database whose rows were numbered
+ * by identity columns keeps working once ids come from the sequences. It runs before the web server
+ * starts and costs one sequence value per table when nothing has to move.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "library.ids.align-sequences", havingValue = "true", matchIfMissing = true)
+public class SequenceAligner implements SmartInitializingSingleton {
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put("book", "book_seq");
+        SEQUENCES.put("loan", "loan_seq");
+        SEQUENCES.put("overdue_notice", "overdue_notice_seq");
+    }
+
+    private JdbcTemplate jdbcTemplate;
+
+    public SequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach(this::align);
+    }
+
+    void align(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+        if (maxId != null && next <= maxId) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + 1));
+        }
+    }
+}
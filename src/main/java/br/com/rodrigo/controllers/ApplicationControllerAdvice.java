@@ -2,6 +2,8 @@ package br.com.rodrigo.controllers;
 
 import br.com.rodrigo.exceptions.ApiErrors;
 import br.com.rodrigo.exceptions.BusinessRuleException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ApplicationControllerAdvice {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiErrors> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -27,6 +30,13 @@ public class ApplicationControllerAdvice {
                 HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiErrors> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        // the persistence provider's message names entities and ids, so it is not echoed back
+        return handlerResponseStatusException(
+                new ResponseStatusException(HttpStatus.CONFLICT, "Resource was modified by another request"));
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<ApiErrors> handlerResponseStatusException(ResponseStatusException ex) {
         return new ResponseEntity<>(new ApiErrors(ex), ex.getStatus());
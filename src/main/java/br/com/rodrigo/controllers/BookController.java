@@ -1,61 +1,149 @@
 package br.com.rodrigo.controllers;
 
 import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.DTOs.CursorPageDTO;
+import br.com.rodrigo.arguments.Cursor;
+import br.com.rodrigo.DTOs.BookImportResultDTO;
+import br.com.rodrigo.mappers.BookMapper;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.services.BookService;
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/books")
 public class BookController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private BookService bookService;
-    private ModelMapper mapper;
+    private BookMapper mapper;
+    private ObjectMapper objectMapper;
+    private Validator validator;
+    private int importBatchSize;
 
-    public BookController(BookService bookService, ModelMapper mapper) {
+    public BookController(BookService bookService, BookMapper mapper, ObjectMapper objectMapper,
+                          Validator validator, @Value("${library.books.import.batch-size:500}") int importBatchSize) {
         this.bookService = bookService;
         this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.importBatchSize = importBatchSize;
     }
 
     @PostMapping
     public ResponseEntity<BookDTO> create(@RequestBody @Valid BookDTO dto) {
-        Book entity = mapper.map(dto, Book.class);
+        Book entity = mapper.toEntity(dto);
         entity = bookService.save(entity);
 
-        return new ResponseEntity(mapper.map(entity, BookDTO.class), HttpStatus.CREATED);
+        return new ResponseEntity(mapper.toDto(entity), HttpStatus.CREATED);
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<BookDTO> get(@PathVariable Long id) {
-        return bookService.findById(id)
-                .map(b ->  ResponseEntity.ok(mapper.map(b, BookDTO.class)))
+    public ResponseEntity<BookDTO> get(@PathVariable Long id, WebRequest request) {
+        Book book = bookService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        String eTag = eTag(book);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(mapper.toDto(book));
     }
 
     @GetMapping
-    public ResponseEntity<Page<BookDTO>> find(BookDTO book, Pageable params) {
-        Page<Book> results = bookService.find(mapper.map(book, Book.class), params);
-        List<BookDTO> books = results.getContent().stream()
-                .map(entity -> mapper.map(entity, BookDTO.class))
-                .collect(Collectors.toList());
-        Page<BookDTO> response = new PageImpl<>(books, params, results.getTotalElements());
+    public ResponseEntity<Page<BookDTO>> find(BookDTO book, Pageable params, WebRequest request) {
+        Page<BookDTO> results = bookService.find(mapper.toEntity(book), params);
+        String eTag = eTag(results.getContent(), results.getTotalElements());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(results);
+    }
+
+    @GetMapping(params = "count=none")
+    public ResponseEntity<Slice<BookDTO>> findSlice(BookDTO book, Pageable params, WebRequest request) {
+        Slice<BookDTO> results = bookService.findSlice(mapper.toEntity(book), params);
+        String eTag = eTag(results.getContent(), results.hasNext());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(results);
+    }
+
+    @GetMapping(params = "count=estimated")
+    public ResponseEntity<Page<BookDTO>> findWithEstimatedCount(BookDTO book, Pageable params, WebRequest request) {
+        Page<BookDTO> results = bookService.findWithEstimatedCount(mapper.toEntity(book), params);
+        String eTag = eTag(results.getContent(), results.getTotalElements());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(results);
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDTO<BookDTO>> findByCursor(BookDTO book, @RequestParam String cursor,
+                                                              @RequestParam(defaultValue = "20") int size,
+                                                              WebRequest request) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be greater than zero");
+        }
 
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        Slice<BookDTO> results = bookService.findAfter(mapper.toEntity(book), Cursor.decode(cursor), size);
+        String eTag = eTag(results.getContent(), results.hasNext());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        List<BookDTO> books = results.getContent();
+        String nextCursor = results.hasNext() ? Cursor.encode(books.get(books.size() - 1).getId()) : null;
+
+        return ResponseEntity.ok().eTag(eTag).body(new CursorPageDTO<>(books, size, nextCursor));
+    }
+
+    // a cursor page carries no count, and without this mapping the request would match both handlers
+    @GetMapping(params = {"cursor", "count"})
+    public void rejectCursorWithCount() {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor cannot be combined with count");
     }
 
     @DeleteMapping("{id}")
     public ResponseEntity delete(@PathVariable Long id) {
-        Book foundedBook = bookService.findById(id)
+        Book foundedBook = bookService.findByIdOnPrimary(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         bookService.delete(foundedBook);
 
@@ -63,13 +151,154 @@ public class BookController {
     }
 
     @PutMapping("{id}")
-    public BookDTO update( @PathVariable Long id, @RequestBody @Valid BookDTO dto){
-        return bookService.findById(id).map( book -> {
-            book.setAuthor(dto.getAuthor());
-            book.setTitle(dto.getTitle());
-            book = bookService.update(book);
-
-            return mapper.map(book, BookDTO.class);
-        }).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookDTO dto,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Book book = bookService.findByIdOnPrimary(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (ifMatch != null && !matches(ifMatch, eTag(book))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified");
+        }
+
+        book.setAuthor(dto.getAuthor());
+        book.setTitle(dto.getTitle());
+        book = bookService.update(book);
+
+        return ResponseEntity.ok().eTag(eTag(book)).body(mapper.toDto(book));
+    }
+
+    @PostMapping(value = "import", consumes = NDJSON, produces = NDJSON)
+    public void importBooks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer writer = response.getWriter();
+        List<Book> batch = new ArrayList<>(importBatchSize);
+        List<Long> batchLines = new ArrayList<>(importBatchSize);
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                BookDTO dto;
+                try {
+                    dto = objectMapper.readValue(line, BookDTO.class);
+                } catch (JsonProcessingException ex) {
+                    writeLine(writer, BookImportResultDTO.builder().line(lineNumber)
+                            .status(BookImportResultDTO.Status.INVALID)
+                            .errors(Collections.singletonList("Malformed JSON")).build());
+                    continue;
+                }
+
+                if (dto == null) {
+                    writeLine(writer, BookImportResultDTO.builder().line(lineNumber)
+                            .status(BookImportResultDTO.Status.INVALID)
+                            .errors(Collections.singletonList("Book data is required")).build());
+                    continue;
+                }
+
+                Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+                if (!violations.isEmpty()) {
+                    writeLine(writer, BookImportResultDTO.builder().line(lineNumber).isbn(dto.getIsbn())
+                            .status(BookImportResultDTO.Status.INVALID)
+                            .errors(violations.stream()
+                                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                                    .collect(Collectors.toList())).build());
+                    continue;
+                }
+
+                batch.add(mapper.toEntity(dto));
+                batchLines.add(lineNumber);
+                if (batch.size() == importBatchSize) {
+                    importBatch(batch, batchLines, writer);
+                }
+            }
+        }
+
+        importBatch(batch, batchLines, writer);
+    }
+
+    @GetMapping(value = "export", produces = NDJSON)
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer writer = response.getWriter();
+
+        bookService.exportAll(book -> {
+            try {
+                writeLine(writer, mapper.toDto(book));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.flush();
+    }
+
+    private void importBatch(List<Book> batch, List<Long> batchLines, Writer writer) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<Book> created = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            created.addAll(bookService.importBooks(batch));
+        } catch (DataIntegrityViolationException ex) {
+            // another request registered one of these ISBNs after the existence check; the batch rolled back,
+            // so retry it book by book to find out which ones still fit
+            for (Book book : batch) {
+                try {
+                    created.addAll(bookService.importBooks(Collections.singletonList(book)));
+                } catch (DataIntegrityViolationException duplicated) {
+                    // reported as DUPLICATED below
+                }
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Book book = batch.get(i);
+            BookImportResultDTO.BookImportResultDTOBuilder result = BookImportResultDTO.builder()
+                    .line(batchLines.get(i)).isbn(book.getIsbn());
+            writeLine(writer, created.contains(book)
+                    ? result.status(BookImportResultDTO.Status.CREATED).build()
+                    : result.status(BookImportResultDTO.Status.DUPLICATED)
+                        .errors(Collections.singletonList("ISBN already exists.")).build());
+        }
+        writer.flush();
+
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private void writeLine(Writer writer, Object value) throws IOException {
+        writer.write(objectMapper.writeValueAsString(value));
+        writer.write('\n');
+    }
+
+    // strong validators come from the version column, so no body has to be serialized to compare them
+    private static String eTag(Book book) {
+        return "\"" + book.getVersion() + "\"";
+    }
+
+    // listings get a weak validator: it is a hash of the page, shared by the JSON, CBOR and Smile bodies,
+    // and Tomcat skips compressing responses that carry a strong one
+    private static String eTag(List<BookDTO> books, Object total) {
+        StringBuilder versions = new StringBuilder(String.valueOf(total));
+        books.forEach(book -> versions.append(',').append(book.getId()).append(':').append(book.getVersion()));
+
+        return "W/\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static boolean matches(String ifMatch, String eTag) {
+        for (String candidate : ifMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 }
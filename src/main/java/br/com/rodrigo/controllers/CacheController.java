@@ -0,0 +1,55 @@
+package br.com.rodrigo.controllers;
+
+import br.com.rodrigo.DTOs.CacheStatsDTO;
+import br.com.rodrigo.services.cache.BookIsbnCache;
+import br.com.rodrigo.services.cache.CountCache;
+import br.com.rodrigo.services.cache.SecondLevelCacheRegions;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/cache")
+public class CacheController {
+    private BookIsbnCache bookIsbnCache;
+    private CountCache countCache;
+    private SecondLevelCacheRegions secondLevelCacheRegions;
+
+    public CacheController(BookIsbnCache bookIsbnCache, CountCache countCache,
+                           SecondLevelCacheRegions secondLevelCacheRegions) {
+        this.bookIsbnCache = bookIsbnCache;
+        this.countCache = countCache;
+        this.secondLevelCacheRegions = secondLevelCacheRegions;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CacheStatsDTO>> stats() {
+        List<CacheStatsDTO> caches = new ArrayList<>(Arrays.asList(
+                toDto(BookIsbnCache.NAME, bookIsbnCache.size(), bookIsbnCache.stats()),
+                toDto(CountCache.NAME, countCache.size(), countCache.stats())));
+        secondLevelCacheRegions.regions().forEach((name, region) ->
+                caches.add(toDto(name, region.estimatedSize(), region.stats())));
+
+        return new ResponseEntity<>(caches, HttpStatus.OK);
+    }
+
+    private CacheStatsDTO toDto(String name, long size, CacheStats stats) {
+        return CacheStatsDTO.builder()
+                .name(name)
+                .size(size)
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .evictions(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .build();
+    }
+}
@@ -1,38 +1,46 @@
 package br.com.rodrigo.controllers;
 
-import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.DTOs.CursorPageDTO;
+import br.com.rodrigo.DTOs.LoanReturnRequestDTO;
+import br.com.rodrigo.DTOs.LoanReturnResultDTO;
 import br.com.rodrigo.DTOs.LoanReturnedDTO;
+import br.com.rodrigo.arguments.Cursor;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.mappers.LoanMapper;
 import br.com.rodrigo.model.entity.Loan;
 import br.com.rodrigo.services.BookService;
 import br.com.rodrigo.services.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/loans")
 public class LoanController {
 
     private BookService bookService;
     private LoanService loanService;
-    private ModelMapper mapper;
+    private LoanMapper mapper;
 
-    public LoanController(BookService bookService, LoanService loanService, ModelMapper mapper) {
+    public LoanController(BookService bookService, LoanService loanService, LoanMapper mapper) {
         this.bookService = bookService;
         this.loanService = loanService;
         this.mapper = mapper;
@@ -40,11 +48,11 @@ public class LoanController {
 
     @PostMapping
     public ResponseEntity<LoanDTO> create(@RequestBody LoanDTO dto) {
-        return bookService.findBookByIsbn(dto.getIsbn())
+        return bookService.findBookByIsbnOnPrimary(dto.getIsbn())
                 .map(entity -> {
-                    Loan loan = Loan.builder().customer(dto.getCustomer()).book(entity).build();
-                    LoanDTO response = mapper.map(loanService.save(loan), LoanDTO.class);
-                    response.setIsbn(entity.getIsbn());
+                    Loan loan = Loan.builder().customer(dto.getCustomer()).book(entity)
+                            .loanDate(LocalDate.now()).build();
+                    LoanDTO response = mapper.toDto(loanService.save(loan));
 
                     return new ResponseEntity(response, HttpStatus.CREATED);
                 }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found"));
@@ -52,25 +60,63 @@ public class LoanController {
 
     @PatchMapping("{id}")
     public ResponseEntity update(@PathVariable Long id, @RequestBody LoanReturnedDTO dto) {
-        Loan loan = loanService.findById(id)
+        Loan loan = loanService.findByIdOnPrimary(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST));
         loan.setReturned(dto.getIsReturned());
 
         return new ResponseEntity(loanService.update(loan), HttpStatus.OK);
     }
 
+    @PostMapping("returns")
+    public ResponseEntity<List<LoanReturnResultDTO>> returnLoans(@RequestBody LoanReturnRequestDTO dto) {
+        List<Long> ids = dto.getIds() == null ? Collections.emptyList() : dto.getIds();
+        List<String> isbns = dto.getIsbns() == null ? Collections.emptyList() : dto.getIsbns();
+        if (ids.isEmpty() && isbns.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids or isbns must be informed");
+        }
+
+        return new ResponseEntity<>(loanService.returnLoans(ids, isbns), HttpStatus.OK);
+    }
+
     @GetMapping()
     public ResponseEntity<Page<LoanDTO>> update(LoanDTO dto, Pageable params) {
-        Page<Loan> loans = loanService.find(mapper.map(dto, Loan.class), params);
-        List<LoanDTO> dtos = loans.getContent().stream().map(entity -> {
-            LoanDTO loanDTO = mapper.map(entity, LoanDTO.class);
-            loanDTO.setBookDTO(mapper.map(entity.getBook(), BookDTO.class));
-
-            return loanDTO;
-        }).collect(Collectors.toList());
-        Page<LoanDTO> reponse = new PageImpl<>(dtos,PageRequest.of(params.getPageNumber(), params.getPageSize()),loans
-                .getTotalElements());
+        Page<LoanDTO> loans = loanService.findDetails(mapper.toEntity(dto), params);
+        Page<LoanDTO> reponse = new PageImpl<>(loans.getContent(),PageRequest.of(params.getPageNumber(),
+                params.getPageSize()),loans.getTotalElements());
 
         return new ResponseEntity<>(reponse, HttpStatus.OK);
     }
+
+    @GetMapping(params = "count=none")
+    public ResponseEntity<Slice<LoanDTO>> findSlice(LoanDTO dto, Pageable params) {
+        return new ResponseEntity<>(loanService.findDetailsSlice(mapper.toEntity(dto), params), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "count=estimated")
+    public ResponseEntity<Page<LoanDTO>> findWithEstimatedCount(LoanDTO dto, Pageable params) {
+        return new ResponseEntity<>(loanService.findDetailsWithEstimatedCount(mapper.toEntity(dto), params),
+                HttpStatus.OK);
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDTO<LoanDTO>> findByCursor(LoanDTO dto, @RequestParam String cursor,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be greater than zero");
+        }
+
+        Slice<Loan> loans = loanService.findAfter(mapper.toEntity(dto), Cursor.decode(cursor), size);
+        List<LoanDTO> dtos = loans.getContent().stream()
+                .map(mapper::toDtoWithBook)
+                .collect(Collectors.toList());
+        String nextCursor = loans.hasNext() ? Cursor.encode(dtos.get(dtos.size() - 1).getId()) : null;
+
+        return new ResponseEntity<>(new CursorPageDTO<>(dtos, size, nextCursor), HttpStatus.OK);
+    }
+
+    // a cursor page carries no count, and without this mapping the request would match both handlers
+    @GetMapping(params = {"cursor", "count"})
+    public void rejectCursorWithCount() {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor cannot be combined with count");
+    }
 }
@@ -0,0 +1,35 @@
+package br.com.rodrigo.exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Names of the unique constraints whose violations are business rule rejections, and the check
+ * both stacks use to tell them apart from any other integrity violation.
+ */
+public final class ConstraintViolations {
+    public static final String ACTIVE_LOAN = "uk_loan_active_book_id";
+    public static final String BOOK_ISBN = "uk_book_isbn";
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean violates(Throwable ex, String constraint) {
+        if(!(ex instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if(cause instanceof ConstraintViolationException) {
+                String name = ((ConstraintViolationException) cause).getConstraintName();
+                if(name != null) {
+                    return name.toLowerCase(Locale.ROOT).contains(constraint);
+                }
+            }
+        }
+        // R2DBC, and drivers whose constraint name Hibernate can't extract, still mention it in the message
+        String message = ((DataIntegrityViolationException) ex).getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(constraint);
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.rodrigo.mappers;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.model.entity.Book;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface BookMapper {
+    BookDTO toDto(Book book);
+
+    @Mapping(target = "version", ignore = true)
+    Book toEntity(BookDTO dto);
+}
@@ -0,0 +1,24 @@
+package br.com.rodrigo.mappers;
+
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.model.entity.Loan;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring", uses = BookMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface LoanMapper {
+    @Mapping(target = "isbn", source = "book.isbn")
+    @Mapping(target = "bookDTO", ignore = true)
+    LoanDTO toDto(Loan loan);
+
+    @Mapping(target = "isbn", source = "book.isbn")
+    @Mapping(target = "bookDTO", source = "book")
+    LoanDTO toDtoWithBook(Loan loan);
+
+    @Mapping(target = "book.isbn", source = "isbn")
+    @Mapping(target = "loanDate", ignore = true)
+    @Mapping(target = "isReturned", ignore = true)
+    @Mapping(target = "activeBookId", ignore = true)
+    Loan toEntity(LoanDTO dto);
+}
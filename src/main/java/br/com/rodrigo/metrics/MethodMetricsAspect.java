@@ -0,0 +1,145 @@
+package br.com.rodrigo.metrics;
+
+import br.com.rodrigo.exceptions.BusinessRuleException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every controller, service and repository call as {@code library.method}, tagged with the
+ * layer, class, method, outcome and exception. Timers are resolved once per method and outcome and
+ * then reused, so a call costs two map lookups and two clock reads. Business rule rejections are
+ * also counted as {@code library.business.rejections}, by method and exception class; messages are
+ * left out of the tags so the number of series stays bounded.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "library.metrics.methods.enabled", havingValue = "true", matchIfMissing = true)
+public class MethodMetricsAspect {
+    public static final String METRIC = "library.method";
+    public static final String REJECTIONS = "library.business.rejections";
+
+    private MeterRegistry registry;
+    private ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodTimers>> timers = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(br.com.rodrigo.controllers..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("controller", joinPoint);
+    }
+
+    @Around("within(br.com.rodrigo.services.impl..*)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("service", joinPoint);
+    }
+
+    // reactive repositories return before the query runs, so timing the call would only measure assembly
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..)) "
+            + "&& !this(org.springframework.data.repository.reactive.ReactiveCrudRepository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("repository", joinPoint);
+    }
+
+    private Object time(String layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodTimers methodTimers = timers(layer, joinPoint);
+        long start = registry.config().clock().monotonicTime();
+        try {
+            Object result = joinPoint.proceed();
+            methodTimers.success.record(registry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+
+            return result;
+        } catch (Throwable ex) {
+            methodTimers.failure(ex).record(registry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+            // the rule is enforced in the service layer; counting it again in the controller would double it
+            if (ex instanceof BusinessRuleException && "service".equals(methodTimers.layer)) {
+                methodTimers.rejection(ex).increment();
+            }
+            throw ex;
+        }
+    }
+
+    private MethodTimers timers(String layer, ProceedingJoinPoint joinPoint) {
+        // repository methods are declared on shared Spring Data interfaces, so the bean type is part of the key
+        Class<?> type = joinPoint.getTarget() == null ? Object.class : joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+
+        return timers.computeIfAbsent(type, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> new MethodTimers(layer, className(type), method.getName()));
+    }
+
+    private static String className(Class<?> type) {
+        if (type.getSimpleName().contains("$")) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (candidate.getName().startsWith("br.com.rodrigo.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+        }
+
+        return type.getSimpleName();
+    }
+
+    private static String outcome(Throwable ex) {
+        if (ex instanceof BusinessRuleException) {
+            return "BUSINESS_RULE";
+        }
+        if (ex instanceof ResponseStatusException) {
+            return "REJECTED";
+        }
+
+        return "ERROR";
+    }
+
+    private class MethodTimers {
+        private final String layer;
+        private final String className;
+        private final String methodName;
+        private final Timer success;
+        private final ConcurrentMap<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Class<?>, Counter> rejections = new ConcurrentHashMap<>();
+
+        MethodTimers(String layer, String className, String methodName) {
+            this.layer = layer;
+            this.className = className;
+            this.methodName = methodName;
+            this.success = timer("SUCCESS", "none");
+        }
+
+        Timer failure(Throwable ex) {
+            return failures.computeIfAbsent(ex.getClass(), type -> timer(outcome(ex), type.getSimpleName()));
+        }
+
+        Counter rejection(Throwable ex) {
+            return rejections.computeIfAbsent(ex.getClass(), type -> Counter.builder(REJECTIONS)
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("reason", type.getSimpleName())
+                    .register(registry));
+        }
+
+        private Timer timer(String outcome, String exception) {
+            return Timer.builder(METRIC)
+                    .tag("layer", layer)
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(registry);
+        }
+    }
+}
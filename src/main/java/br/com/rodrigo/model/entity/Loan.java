@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -15,7 +18,9 @@ import java.time.LocalDate;
 @Entity
 public class Loan {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @GenericGenerator(name = "loan_seq", strategy = "br.com.rodrigo.model.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "loan_seq"))
     private Long id;
     @JoinColumn(name = "id_book")
     @ManyToOne
@@ -23,4 +28,12 @@ public class Loan {
     private String customer;
     private LocalDate loanDate;
     private boolean isReturned;
+    @Column(unique = true)
+    private Long activeBookId;
+
+    @PrePersist
+    @PreUpdate
+    void updateActiveBookId() {
+        activeBookId = isReturned || book == null ? null : book.getId();
+    }
 }
@@ -0,0 +1,32 @@
+package br.com.rodrigo.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class OverdueNotice {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "overdue_notice_seq")
+    @GenericGenerator(name = "overdue_notice_seq", strategy = "br.com.rodrigo.model.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "overdue_notice_seq"))
+    private Long id;
+    @Column(unique = true)
+    private Long loanId;
+    private String customer;
+    private String isbn;
+    private LocalDate loanDate;
+    private LocalDate dueDate;
+    private LocalDate noticeDate;
+}
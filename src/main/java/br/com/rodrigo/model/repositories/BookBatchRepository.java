@@ -0,0 +1,11 @@
+package br.com.rodrigo.model.repositories;
+
+import br.com.rodrigo.model.entity.Book;
+
+import java.util.List;
+
+public interface BookBatchRepository {
+    void insertAll(List<Book> books);
+
+    void detach(Book book);
+}
@@ -0,0 +1,53 @@
+package br.com.rodrigo.model.repositories;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.outbox.Outbox;
+import br.com.rodrigo.outbox.OutboxEvent;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BookBatchRepositoryImpl implements BookBatchRepository {
+    private static final String INSERT_BOOK = "INSERT INTO book (id, title, author, isbn, version) VALUES (?, ?, ?, ?, ?)";
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManager entityManager;
+
+    public BookBatchRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void insertAll(List<Book> books) {
+        // ids come from the entity's own pooled generator, so a batch costs one sequence call per block
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator ids = session.getFactory().getMetamodel().entityPersister(Book.class).getIdentifierGenerator();
+        for (Book book : books) {
+            book.setId((Long) ids.generate(session, book));
+            book.setVersion(0L);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_BOOK, books, books.size(), (statement, book) -> {
+            statement.setLong(1, book.getId());
+            statement.setString(2, book.getTitle());
+            statement.setString(3, book.getAuthor());
+            statement.setString(4, book.getIsbn());
+            statement.setLong(5, book.getVersion());
+        });
+        // plain JDBC inserts bypass Hibernate's events, so the outbox is told directly
+        Outbox.append(session, books.stream()
+                .map(book -> OutboxEvent.of(OutboxEvent.BOOK_CREATED, book))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void detach(Book book) {
+        entityManager.detach(book);
+    }
+}
@@ -1,14 +1,43 @@
 package br.com.rodrigo.model.repositories;
 
+import br.com.rodrigo.DTOs.BookDTO;
 import br.com.rodrigo.model.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookBatchRepository, BookSearchRepository {
+    // listings read straight into DTOs, so no entity or dirty-checking snapshot is created per row
+    String DETAILS = " select new br.com.rodrigo.DTOs.BookDTO(b.id, b.title, b.author, b.isbn, b.version) from Book b ";
+    String EXPORT_FETCH_SIZE = "500";
+
     boolean existsByIsbn(String isbn);
 
+    // CACHEABLE only takes effect with library.cache.books.query-cache on, since BookIsbnCache already covers the
+    // service path; READ_ONLY because the book it returns is shared through that cache and never changed here
+    @QueryHints({@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true")})
     Optional<Book> findByIsbn(String isbn);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query(DETAILS + "where b.id in :ids")
+    List<BookDTO> findDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true")})
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
 }
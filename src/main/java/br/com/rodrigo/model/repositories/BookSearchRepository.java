@@ -0,0 +1,18 @@
+package br.com.rodrigo.model.repositories;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface BookSearchRepository {
+    Page<BookDTO> searchDetails(Book filter, Pageable pageable);
+
+    Slice<BookDTO> searchDetailsSlice(String title, String author, String isbn, Pageable pageable);
+
+    long countSearch(String title, String author, String isbn);
+
+    // keyset page: the books after lastId, in id order
+    Slice<BookDTO> findDetailsAfter(Long lastId, String title, String author, String isbn, Pageable pageable);
+}
@@ -0,0 +1,129 @@
+package br.com.rodrigo.model.repositories;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookSearchRepositoryImpl implements BookSearchRepository {
+    private EntityManager entityManager;
+
+    public BookSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<BookDTO> searchDetails(Book filter, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookDTO> query = builder.createQuery(BookDTO.class);
+        Root<Book> book = query.from(Book.class);
+        query.where(matching(filter.getId(), filter.getTitle(), filter.getAuthor(), filter.getIsbn(), builder, book)
+                .toArray(new Predicate[0]));
+
+        TypedQuery<BookDTO> typedQuery = details(query, book, builder, pageable, 0);
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable,
+                () -> count(filter.getId(), filter.getTitle(), filter.getAuthor(), filter.getIsbn()));
+    }
+
+    @Override
+    public Slice<BookDTO> searchDetailsSlice(String title, String author, String isbn, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookDTO> query = builder.createQuery(BookDTO.class);
+        Root<Book> book = query.from(Book.class);
+        query.where(matching(null, title, author, isbn, builder, book).toArray(new Predicate[0]));
+
+        return slice(details(query, book, builder, pageable, 1).getResultList(), pageable);
+    }
+
+    @Override
+    public long countSearch(String title, String author, String isbn) {
+        return count(null, title, author, isbn);
+    }
+
+    @Override
+    public Slice<BookDTO> findDetailsAfter(Long lastId, String title, String author, String isbn, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookDTO> query = builder.createQuery(BookDTO.class);
+        Root<Book> book = query.from(Book.class);
+        List<Predicate> predicates = matching(null, title, author, isbn, builder, book);
+        predicates.add(builder.greaterThan(book.get("id"), lastId));
+        query.where(predicates.toArray(new Predicate[0])).orderBy(builder.asc(book.get("id")));
+
+        // the cursor replaces the offset, and the page always runs in id order
+        PageRequest page = PageRequest.of(0, pageable.getPageSize());
+        return slice(details(query, book, builder, page, 1).getResultList(), page);
+    }
+
+    // reads the page straight into DTOs; extra rows past the page size tell a slice whether there is more
+    private TypedQuery<BookDTO> details(CriteriaQuery<BookDTO> query, Root<Book> book, CriteriaBuilder builder,
+                                        Pageable pageable, int extra) {
+        query.select(builder.construct(BookDTO.class, book.get("id"), book.get("title"), book.get("author"),
+                book.get("isbn"), book.get("version")));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, builder));
+        }
+
+        TypedQuery<BookDTO> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize() + extra);
+        }
+
+        return typedQuery;
+    }
+
+    private long count(Long id, String title, String author, String isbn) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(builder.count(book))
+                .where(matching(id, title, author, isbn, builder, book).toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Slice<BookDTO> slice(List<BookDTO> books, Pageable pageable) {
+        boolean hasNext = pageable.isPaged() && books.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? books.subList(0, pageable.getPageSize()) : books, pageable, hasNext);
+    }
+
+    // the one set of filter predicates behind every listing mode: only the informed fields, case-insensitive,
+    // with % and _ matching literally and the like pattern made here rather than by the database on every row
+    private static List<Predicate> matching(Long id, String title, String author, String isbn,
+                                            CriteriaBuilder builder, Root<Book> book) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (id != null) {
+            predicates.add(builder.equal(book.get("id"), id));
+        }
+        contains(predicates, builder, book.get("title"), title);
+        contains(predicates, builder, book.get("author"), author);
+        contains(predicates, builder, book.get("isbn"), isbn);
+
+        return predicates;
+    }
+
+    private static void contains(List<Predicate> predicates, CriteriaBuilder builder, Path<String> path, String value) {
+        if (value != null) {
+            String pattern = "%" + EscapeCharacter.DEFAULT.escape(value.toLowerCase()) + "%";
+            predicates.add(builder.like(builder.lower(path), pattern, EscapeCharacter.DEFAULT.getEscapeCharacter()));
+        }
+    }
+}
@@ -1,19 +1,89 @@
 package br.com.rodrigo.model.repositories;
 
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.DTOs.OverdueLoanDTO;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
 public interface LoanRepository extends JpaRepository<Loan, Long> {
+    String DETAILS_BY_BOOK_OR_CUSTOMER = " select new br.com.rodrigo.DTOs.LoanDTO(l.id, l.customer, b.id, b.title, " +
+            "b.author, b.isbn) from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ";
+    String COUNT_BY_BOOK_OR_CUSTOMER = " select count(l.id) from Loan as l join l.book as b " +
+            "where b.isbn = :isbn or l.customer =:customer ";
+    String OVERDUE = " select new br.com.rodrigo.DTOs.OverdueLoanDTO(l.id, l.customer, b.isbn, l.loanDate) " +
+            "from Loan as l join l.book as b where l.isReturned = false and l.loanDate < :dueBefore ";
+
     @Query(value = "SELECT case when ( count(l.id) > 0 ) THEN TRUE ELSE FALSE END FROM Loan l " +
-            "WHERE l.book = :book AND (l.isReturned IS NULL OR l.isReturned IS NOT TRUE)")
+            "WHERE l.book = :book AND l.isReturned = false")
     boolean existsByBookLoanNotReturned(@Param("book") Book book);
 
+    @Query(value = "SELECT DISTINCT l.book.id FROM Loan l WHERE l.isReturned = false")
+    List<Long> findLoanedBookIds();
+
     @Query( value = " select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
     Page<Loan> findByBookOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer, Pageable pageable);
+
+    @Query( value = DETAILS_BY_BOOK_OR_CUSTOMER, countQuery = COUNT_BY_BOOK_OR_CUSTOMER)
+    Page<LoanDTO> findDetailsByBookOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer,
+                                              Pageable pageable);
+
+    @Query( value = DETAILS_BY_BOOK_OR_CUSTOMER)
+    Slice<LoanDTO> findDetailsSliceByBookOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer,
+                                                    Pageable pageable);
+
+    @Query( value = COUNT_BY_BOOK_OR_CUSTOMER)
+    long countByBookOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer);
+
+    @Query( value = " select l from Loan as l join l.book as b where l.id > :lastId " +
+            "and (b.isbn = :isbn or l.customer = :customer) order by l.id ")
+    Slice<Loan> findByBookOrCustomerAfter(@Param("lastId") Long lastId, @Param("isbn") String isbn,
+                                          @Param("customer") String customer, Pageable pageable);
+
+    @Query( value = OVERDUE + "order by l.loanDate, l.id ")
+    List<OverdueLoanDTO> findOverdue(@Param("dueBefore") LocalDate dueBefore, Pageable pageable);
+
+    // the loanDate >= bound repeats the keyset condition so the index range starts at the previous chunk
+    @Query( value = OVERDUE + "and l.loanDate >= :lastLoanDate " +
+            "and (l.loanDate > :lastLoanDate or (l.loanDate = :lastLoanDate and l.id > :lastId)) " +
+            "order by l.loanDate, l.id ")
+    List<OverdueLoanDTO> findOverdueAfter(@Param("dueBefore") LocalDate dueBefore,
+                                          @Param("lastLoanDate") LocalDate lastLoanDate, @Param("lastId") Long lastId,
+                                          Pageable pageable);
+
+    // a book has at most one active loan, so locking its row serializes every return of that loan;
+    // rows are locked in id order so that two overlapping carts cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( value = " select b from Book as b where b.id in (select l.book.id from Loan as l where l.id in :ids) " +
+            "order by b.id ")
+    List<Book> lockBooksOfLoans(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query( value = " select b from Book as b where b.isbn in :isbns order by b.id ")
+    List<Book> lockBooksByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @Query( value = " select l from Loan as l join fetch l.book where l.id in :ids ")
+    List<Loan> findWithBookByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query( value = " select l from Loan as l join fetch l.book as b where b.isbn in :isbns " +
+            "and l.isReturned = false ")
+    List<Loan> findActiveByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query( value = " update Loan l set l.isReturned = true, l.activeBookId = null where l.id in :ids " +
+            "and l.isReturned = false ")
+    int markReturned(@Param("ids") Collection<Long> ids);
 }
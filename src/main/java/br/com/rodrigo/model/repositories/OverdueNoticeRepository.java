@@ -0,0 +1,15 @@
+package br.com.rodrigo.model.repositories;
+
+import br.com.rodrigo.model.entity.OverdueNotice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface OverdueNoticeRepository extends JpaRepository<OverdueNotice, Long> {
+
+    @Query("select n.loanId from OverdueNotice n where n.loanId in :loanIds")
+    Set<Long> findLoanIdsIn(@Param("loanIds") Collection<Long> loanIds);
+}
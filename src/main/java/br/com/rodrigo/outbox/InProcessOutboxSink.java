@@ -0,0 +1,21 @@
+package br.com.rodrigo.outbox;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+/**
+ * Publishes each event as a Spring application event, for listeners running in this application.
+ */
+public class InProcessOutboxSink implements OutboxSink {
+    private ApplicationEventPublisher publisher;
+
+    public InProcessOutboxSink(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(publisher::publishEvent);
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.rodrigo.outbox;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends events to the outbox_event table in the current transaction. The rows are written as one JDBC
+ * batch when the transaction completes, after Hibernate's flush, so they commit or roll back together with
+ * the changes that produced them.
+ */
+@Component
+@Profile("!reactive")
+public class Outbox {
+    private static final String INSERT_EVENT = "INSERT INTO outbox_event "
+            + "(aggregate_type, aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private EntityManager entityManager;
+
+    public Outbox(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public void append(List<OutboxEvent> events) {
+        append(entityManager.unwrap(SessionImplementor.class), events);
+    }
+
+    public static void append(SessionImplementor session, List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!session.isTransactionInProgress()) {
+            throw new IllegalStateException("Outbox events must be appended inside a transaction");
+        }
+
+        List<OutboxEvent> pending = new ArrayList<>(events);
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> completing.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_EVENT)) {
+                for (OutboxEvent event : pending) {
+                    statement.setString(1, event.getAggregateType());
+                    statement.setLong(2, event.getAggregateId());
+                    statement.setString(3, event.getType());
+                    statement.setString(4, event.getPayload());
+                    statement.setTimestamp(5, Timestamp.from(event.getCreatedAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }));
+    }
+}
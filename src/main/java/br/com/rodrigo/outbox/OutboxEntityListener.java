@@ -0,0 +1,73 @@
+package br.com.rodrigo.outbox;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+
+/**
+ * Turns every Book and Loan insert, update and delete flushed by Hibernate into an outbox event. Changes made
+ * with bulk statements or plain JDBC bypass Hibernate's events and append theirs through {@link Outbox}.
+ */
+@Component
+@Profile("!reactive")
+public class OutboxEntityListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    public OutboxEntityListener(EntityManagerFactory entityManagerFactory) {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Book) {
+            append(event.getSession(), OutboxEvent.of(OutboxEvent.BOOK_CREATED, (Book) event.getEntity()));
+        } else if (event.getEntity() instanceof Loan) {
+            append(event.getSession(), OutboxEvent.of(OutboxEvent.LOAN_CREATED, (Loan) event.getEntity()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Book) {
+            append(event.getSession(), OutboxEvent.of(OutboxEvent.BOOK_UPDATED, (Book) event.getEntity()));
+        } else if (event.getEntity() instanceof Loan) {
+            Loan loan = (Loan) event.getEntity();
+            append(event.getSession(), OutboxEvent.of(loan.isReturned() ? OutboxEvent.LOAN_RETURNED
+                    : OutboxEvent.LOAN_UPDATED, loan));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Book) {
+            append(event.getSession(), OutboxEvent.of(OutboxEvent.BOOK_DELETED, (Book) event.getEntity()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void append(EventSource session, OutboxEvent event) {
+        Outbox.append(session, Collections.singletonList(event));
+    }
+}
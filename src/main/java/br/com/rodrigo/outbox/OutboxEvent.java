@@ -0,0 +1,77 @@
+package br.com.rodrigo.outbox;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    public static final String BOOK = "BOOK";
+    public static final String LOAN = "LOAN";
+    public static final String BOOK_CREATED = "BOOK_CREATED";
+    public static final String BOOK_UPDATED = "BOOK_UPDATED";
+    public static final String BOOK_DELETED = "BOOK_DELETED";
+    public static final String LOAN_CREATED = "LOAN_CREATED";
+    public static final String LOAN_UPDATED = "LOAN_UPDATED";
+    public static final String LOAN_RETURNED = "LOAN_RETURNED";
+
+    private static final ObjectMapper PAYLOAD_MAPPER = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private Long id;
+    private String aggregateType;
+    private Long aggregateId;
+    private String type;
+    private String payload;
+    private Instant createdAt;
+
+    public static OutboxEvent of(String type, Book book) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", book.getId());
+        payload.put("title", book.getTitle());
+        payload.put("author", book.getAuthor());
+        payload.put("isbn", book.getIsbn());
+        payload.put("version", book.getVersion());
+
+        return of(BOOK, book.getId(), type, payload);
+    }
+
+    public static OutboxEvent of(String type, Loan loan) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", loan.getId());
+        payload.put("bookId", loan.getBook() == null ? null : loan.getBook().getId());
+        payload.put("isbn", loan.getBook() == null ? null : loan.getBook().getIsbn());
+        payload.put("customer", loan.getCustomer());
+        payload.put("loanDate", loan.getLoanDate());
+        payload.put("returned", loan.isReturned());
+
+        return of(LOAN, loan.getId(), type, payload);
+    }
+
+    private static OutboxEvent of(String aggregateType, Long aggregateId, String type, Map<String, Object> payload) {
+        try {
+            return OutboxEvent.builder()
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .type(type)
+                    .payload(PAYLOAD_MAPPER.writeValueAsString(payload))
+                    .createdAt(Instant.now())
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize " + type + " payload", ex);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.rodrigo.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox in id order, {@code library.outbox.relay.batch-size} events at a time, and deletes a batch
+ * only after the sink accepted it. A failed batch stays in the table and is offered again, whole and in the
+ * same order, on the next run, so delivery is at least once and events of an aggregate never overtake each
+ * other. Run the relay on a single instance; {@code library.outbox.relay.enabled=false} turns it off elsewhere.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "library.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    public static final String PUBLISHED_METRIC = "library.outbox.published";
+    public static final String FAILURES_METRIC = "library.outbox.failures";
+
+    private static final String SELECT_BATCH = "SELECT id, aggregate_type, aggregate_id, event_type, payload, "
+            + "created_at FROM outbox_event ORDER BY id LIMIT ?";
+    private static final String DELETE_EVENT = "DELETE FROM outbox_event WHERE id = ?";
+    private static final RowMapper<OutboxEvent> EVENT_MAPPER = (rs, row) -> OutboxEvent.builder()
+            .id(rs.getLong("id"))
+            .aggregateType(rs.getString("aggregate_type"))
+            .aggregateId(rs.getLong("aggregate_id"))
+            .type(rs.getString("event_type"))
+            .payload(rs.getString("payload"))
+            .createdAt(rs.getTimestamp("created_at").toInstant())
+            .build();
+
+    private JdbcTemplate jdbcTemplate;
+    private OutboxSink sink;
+    private MeterRegistry registry;
+    private int batchSize;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, OutboxSink sink, MeterRegistry registry,
+                       @Value("${library.outbox.relay.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sink = sink;
+        this.registry = registry;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${library.outbox.relay.interval-ms:1000}")
+    public synchronized int relay() {
+        int published = 0;
+        List<OutboxEvent> batch;
+        do {
+            batch = jdbcTemplate.query(SELECT_BATCH, EVENT_MAPPER, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            try {
+                sink.publish(batch);
+            } catch (RuntimeException ex) {
+                registry.counter(FAILURES_METRIC).increment();
+                throw ex;
+            }
+            jdbcTemplate.batchUpdate(DELETE_EVENT, batch.stream()
+                    .map(event -> new Object[]{event.getId()})
+                    .collect(Collectors.toList()));
+            registry.counter(PUBLISHED_METRIC).increment(batch.size());
+            published += batch.size();
+        } while (batch.size() == batchSize);
+
+        return published;
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.rodrigo.outbox;
+
+import java.util.List;
+
+/**
+ * Where the relay delivers outbox events. Events arrive in the order they were recorded; an implementation
+ * must deliver them in that order and throw if any was not delivered, in which case the whole batch is
+ * offered again on the next run.
+ */
+public interface OutboxSink {
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,35 @@
+package br.com.rodrigo.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Paths;
+
+/**
+ * Picks the sink with {@code library.outbox.sink}: {@code in-process} (the default) or {@code file}. An
+ * application-supplied {@link OutboxSink} takes over when it is declared {@code @Primary}.
+ */
+@Configuration
+@Profile("!reactive")
+public class OutboxSinkConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    @ConditionalOnProperty(name = "library.outbox.sink", havingValue = "file")
+    public FileOutboxSink fileOutboxSink(@Value("${library.outbox.file:outbox-events.jsonl}") String path,
+                                         ObjectMapper objectMapper) {
+        return new FileOutboxSink(Paths.get(path), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public InProcessOutboxSink inProcessOutboxSink(ApplicationEventPublisher publisher) {
+        return new InProcessOutboxSink(publisher);
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.rodrigo.reactive.mappers;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.reactive.model.BookRecord;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface BookRecordMapper {
+    BookDTO toDto(BookRecord book);
+
+    @Mapping(target = "version", ignore = true)
+    BookRecord toRecord(BookDTO dto);
+}
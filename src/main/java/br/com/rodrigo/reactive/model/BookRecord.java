@@ -0,0 +1,25 @@
+package br.com.rodrigo.reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("book")
+public class BookRecord {
+    @Id
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,28 @@
+package br.com.rodrigo.reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("loan")
+public class LoanRecord {
+    @Id
+    private Long id;
+    @Column("id_book")
+    private Long bookId;
+    private String customer;
+    private LocalDate loanDate;
+    @Column("is_returned")
+    private boolean returned;
+    private Long activeBookId;
+}
@@ -0,0 +1,11 @@
+package br.com.rodrigo.reactive.repositories;
+
+import br.com.rodrigo.reactive.model.BookRecord;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookRepository extends ReactiveCrudRepository<BookRecord, Long> {
+    Mono<Boolean> existsByIsbn(String isbn);
+
+    Mono<BookRecord> findByIsbn(String isbn);
+}
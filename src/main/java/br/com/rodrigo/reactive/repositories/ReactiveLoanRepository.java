@@ -0,0 +1,12 @@
+package br.com.rodrigo.reactive.repositories;
+
+import br.com.rodrigo.reactive.model.LoanRecord;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveLoanRepository extends ReactiveCrudRepository<LoanRecord, Long> {
+    @Query("select count(*) > 0 from loan where id_book = :bookId and (is_returned is null or is_returned = false)")
+    Mono<Boolean> existsActiveByBookId(@Param("bookId") Long bookId);
+}
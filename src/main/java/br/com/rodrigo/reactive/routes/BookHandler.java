@@ -0,0 +1,111 @@
+package br.com.rodrigo.reactive.routes;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.exceptions.ApiErrors;
+import br.com.rodrigo.reactive.mappers.BookRecordMapper;
+import br.com.rodrigo.reactive.model.BookRecord;
+import br.com.rodrigo.reactive.services.ReactiveBookService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Validator;
+import java.util.function.Function;
+
+@Component
+@Profile("reactive")
+public class BookHandler {
+
+    private ReactiveBookService bookService;
+    private BookRecordMapper mapper;
+    private SpringValidatorAdapter validator;
+
+    public BookHandler(ReactiveBookService bookService, BookRecordMapper mapper, Validator validator) {
+        this.bookService = bookService;
+        this.mapper = mapper;
+        this.validator = new SpringValidatorAdapter(validator);
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return request.bodyToMono(BookDTO.class)
+                .flatMap(dto -> validated(dto, valid -> bookService.save(mapper.toRecord(valid))
+                        .flatMap(book -> ServerResponse.status(HttpStatus.CREATED).bodyValue(mapper.toDto(book)))));
+    }
+
+    public Mono<ServerResponse> get(ServerRequest request) {
+        return findOrNotFound(request)
+                .flatMap(book -> ServerResponse.ok().bodyValue(mapper.toDto(book)));
+    }
+
+    public Mono<ServerResponse> find(ServerRequest request) {
+        BookRecord filter = BookRecord.builder()
+                .title(request.queryParam("title").orElse(null))
+                .author(request.queryParam("author").orElse(null))
+                .isbn(request.queryParam("isbn").orElse(null))
+                .build();
+
+        return bookService.find(filter, pageRequest(request))
+                .flatMap(page -> ServerResponse.ok().bodyValue(page.map(mapper::toDto)));
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return request.bodyToMono(BookDTO.class)
+                .flatMap(dto -> validated(dto, valid -> findOrNotFound(request)
+                        .flatMap(book -> {
+                            book.setAuthor(valid.getAuthor());
+                            book.setTitle(valid.getTitle());
+
+                            return bookService.update(book);
+                        })
+                        .flatMap(book -> ServerResponse.ok().bodyValue(mapper.toDto(book)))));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return findOrNotFound(request)
+                .flatMap(bookService::delete)
+                .then(ServerResponse.noContent().build());
+    }
+
+    private Mono<BookRecord> findOrNotFound(ServerRequest request) {
+        return bookService.findById(id(request))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    private Mono<ServerResponse> validated(BookDTO dto, Function<BookDTO, Mono<ServerResponse>> next) {
+        BeanPropertyBindingResult errors = new BeanPropertyBindingResult(dto, "bookDTO");
+        validator.validate(dto, errors);
+        if(errors.hasErrors()) {
+            return ServerResponse.badRequest().bodyValue(new ApiErrors(errors));
+        }
+
+        return next.apply(dto);
+    }
+
+    // malformed input is the caller's mistake: 400, as the servlet stack answers, not a 500
+    static Long id(ServerRequest request) {
+        try {
+            return Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id must be a number");
+        }
+    }
+
+    static PageRequest pageRequest(ServerRequest request) {
+        try {
+            int page = request.queryParam("page").map(Integer::valueOf).orElse(0);
+            int size = request.queryParam("size").map(Integer::valueOf).orElse(20);
+
+            return PageRequest.of(page, size);
+        } catch (IllegalArgumentException ex) {
+            // NumberFormatException, or a negative page or a size below one rejected by PageRequest
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page and size must be valid numbers");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.rodrigo.reactive.routes;
+
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.DTOs.LoanReturnedDTO;
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import br.com.rodrigo.reactive.model.BookRecord;
+import br.com.rodrigo.reactive.model.LoanRecord;
+import br.com.rodrigo.reactive.services.ReactiveBookService;
+import br.com.rodrigo.reactive.services.ReactiveLoanService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@Component
+@Profile("reactive")
+public class LoanHandler {
+
+    private ReactiveBookService bookService;
+    private ReactiveLoanService loanService;
+
+    public LoanHandler(ReactiveBookService bookService, ReactiveLoanService loanService) {
+        this.bookService = bookService;
+        this.loanService = loanService;
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return request.bodyToMono(LoanDTO.class)
+                .flatMap(dto -> bookService.findBookByIsbn(dto.getIsbn())
+                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found")))
+                        .flatMap(book -> loanService.save(LoanRecord.builder().bookId(book.getId())
+                                .customer(dto.getCustomer()).loanDate(LocalDate.now()).build()))
+                        .map(loan -> LoanDTO.builder().id(loan.getId()).isbn(dto.getIsbn())
+                                .customer(loan.getCustomer()).build()))
+                .flatMap(loan -> ServerResponse.status(HttpStatus.CREATED).bodyValue(loan));
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        Long id = BookHandler.id(request);
+
+        return request.bodyToMono(LoanReturnedDTO.class)
+                .flatMap(dto -> loanService.findById(id)
+                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST)))
+                        .flatMap(loan -> {
+                            loan.setReturned(Boolean.TRUE.equals(dto.getIsReturned()));
+
+                            return loanService.update(loan);
+                        }))
+                .flatMap(loan -> bookService.findById(loan.getBookId())
+                        .map(book -> toPayload(loan, book)))
+                .flatMap(loan -> ServerResponse.ok().bodyValue(loan));
+    }
+
+    // the servlet PATCH answers with the loan and its book as LoanController serializes them
+    private static Loan toPayload(LoanRecord loan, BookRecord book) {
+        return Loan.builder()
+                .id(loan.getId())
+                .book(Book.builder().id(book.getId()).title(book.getTitle()).author(book.getAuthor())
+                        .isbn(book.getIsbn()).version(book.getVersion()).build())
+                .customer(loan.getCustomer())
+                .loanDate(loan.getLoanDate())
+                .isReturned(loan.isReturned())
+                .activeBookId(loan.getActiveBookId())
+                .build();
+    }
+
+    public Mono<ServerResponse> find(ServerRequest request) {
+        return loanService.findDetails(request.queryParam("isbn").orElse(null),
+                        request.queryParam("customer").orElse(null), BookHandler.pageRequest(request))
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+}
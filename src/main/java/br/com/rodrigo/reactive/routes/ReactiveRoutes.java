@@ -0,0 +1,57 @@
+package br.com.rodrigo.reactive.routes;
+
+import br.com.rodrigo.exceptions.ApiErrors;
+import br.com.rodrigo.exceptions.BusinessRuleException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Functional routes of the reactive profile. They answer the same paths, payloads and error bodies
+ * as BookController and LoanController do on the servlet stack.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> bookRoutes(BookHandler books) {
+        return route()
+                .path("/api/books", builder -> builder
+                        .POST("", books::create)
+                        .GET("", books::find)
+                        .GET("/{id}", books::get)
+                        .PUT("/{id}", books::update)
+                        .DELETE("/{id}", books::delete))
+                .filter(ReactiveRoutes::handleErrors)
+                .build();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> loanRoutes(LoanHandler loans) {
+        return route()
+                .path("/api/loans", builder -> builder
+                        .POST("", loans::create)
+                        .GET("", loans::find)
+                        .PATCH("/{id}", loans::update))
+                .filter(ReactiveRoutes::handleErrors)
+                .build();
+    }
+
+    private static Mono<ServerResponse> handleErrors(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        // deferred so that errors a handler throws before returning its Mono are answered here as well
+        return Mono.defer(() -> next.handle(request))
+                .onErrorResume(BusinessRuleException.class,
+                        ex -> ServerResponse.badRequest().bodyValue(new ApiErrors(ex)))
+                .onErrorResume(ResponseStatusException.class,
+                        ex -> ServerResponse.status(ex.getStatus()).bodyValue(new ApiErrors(ex)));
+    }
+}
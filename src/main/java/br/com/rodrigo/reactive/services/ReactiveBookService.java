@@ -0,0 +1,20 @@
+package br.com.rodrigo.reactive.services;
+
+import br.com.rodrigo.reactive.model.BookRecord;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookService {
+    Mono<BookRecord> save(BookRecord book);
+
+    Mono<BookRecord> findById(Long id);
+
+    Mono<BookRecord> update(BookRecord book);
+
+    Mono<Void> delete(BookRecord book);
+
+    Mono<Page<BookRecord>> find(BookRecord book, Pageable params);
+
+    Mono<BookRecord> findBookByIsbn(String isbn);
+}
@@ -0,0 +1,17 @@
+package br.com.rodrigo.reactive.services;
+
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.reactive.model.LoanRecord;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveLoanService {
+    Mono<LoanRecord> save(LoanRecord loan);
+
+    Mono<LoanRecord> findById(Long id);
+
+    Mono<LoanRecord> update(LoanRecord loan);
+
+    Mono<Page<LoanDTO>> findDetails(String isbn, String customer, Pageable params);
+}
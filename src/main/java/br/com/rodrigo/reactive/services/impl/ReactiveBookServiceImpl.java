@@ -0,0 +1,131 @@
+package br.com.rodrigo.reactive.services.impl;
+
+import br.com.rodrigo.exceptions.BusinessRuleException;
+import br.com.rodrigo.exceptions.ConstraintViolations;
+import br.com.rodrigo.reactive.model.BookRecord;
+import br.com.rodrigo.reactive.repositories.ReactiveBookRepository;
+import br.com.rodrigo.reactive.services.ReactiveBookService;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+@Profile("reactive")
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+    private ReactiveBookRepository bookRepository;
+    private DatabaseClient databaseClient;
+
+    public ReactiveBookServiceImpl(ReactiveBookRepository bookRepository, DatabaseClient databaseClient) {
+        this.bookRepository = bookRepository;
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<BookRecord> save(BookRecord book) {
+        return bookRepository.existsByIsbn(book.getIsbn())
+                .flatMap(exists -> exists
+                        ? Mono.error(new BusinessRuleException("ISBN already exists."))
+                        : saveUniqueIsbn(book));
+    }
+
+    private Mono<BookRecord> saveUniqueIsbn(BookRecord book) {
+        // the unique isbn index rejected it: another request registered the same ISBN first
+        return bookRepository.save(book)
+                .onErrorMap(ex -> ConstraintViolations.violates(ex, ConstraintViolations.BOOK_ISBN),
+                        ex -> new BusinessRuleException("ISBN already exists."));
+    }
+
+    @Override
+    public Mono<BookRecord> findById(Long id) {
+        return bookRepository.findById(id);
+    }
+
+    @Override
+    public Mono<BookRecord> update(BookRecord book) {
+        if(book == null || book.getId() == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+        }
+
+        return saveUniqueIsbn(book);
+    }
+
+    @Override
+    public Mono<Void> delete(BookRecord book) {
+        if(book == null || book.getId() == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST));
+        }
+
+        return bookRepository.delete(book);
+    }
+
+    @Override
+    public Mono<Page<BookRecord>> find(BookRecord book, Pageable params) {
+        // same case-insensitive CONTAINING semantics as the servlet stack's search, % and _ included literally
+        Map<String, String> filters = new LinkedHashMap<>();
+        filters.put("title", book.getTitle());
+        filters.put("author", book.getAuthor());
+        filters.put("isbn", book.getIsbn());
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        filters.forEach((column, value) -> {
+            if(value != null) {
+                where.append(" and lower(").append(column).append(") like :").append(column)
+                        .append(" escape '").append(Escaper.DEFAULT.getEscapeCharacter()).append("'");
+            }
+        });
+
+        Mono<List<BookRecord>> content = bind(databaseClient.sql("select id, title, author, isbn, version from book"
+                + where + " order by id limit :limit offset :offset"), filters)
+                .bind("limit", params.getPageSize())
+                .bind("offset", params.getOffset())
+                .map((row, metadata) -> toRecord(row))
+                .all()
+                .collectList();
+        Mono<Long> total = bind(databaseClient.sql("select count(*) from book" + where), filters)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+
+        // one query after the other: zipping them holds two pooled connections per request and
+        // starves the pool once concurrent requests outnumber its connections
+        return content.flatMap(list -> total.map(count -> new PageImpl<>(list, params, count)));
+    }
+
+    @Override
+    public Mono<BookRecord> findBookByIsbn(String isbn) {
+        return bookRepository.findByIsbn(isbn);
+    }
+
+    private DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            if(filter.getValue() != null) {
+                String value = Escaper.DEFAULT.escape(filter.getValue().toLowerCase(Locale.ROOT));
+                spec = spec.bind(filter.getKey(), "%" + value + "%");
+            }
+        }
+
+        return spec;
+    }
+
+    private static BookRecord toRecord(Row row) {
+        return BookRecord.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.rodrigo.reactive.services.impl;
+
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.exceptions.BusinessRuleException;
+import br.com.rodrigo.exceptions.ConstraintViolations;
+import br.com.rodrigo.reactive.model.LoanRecord;
+import br.com.rodrigo.reactive.repositories.ReactiveLoanRepository;
+import br.com.rodrigo.reactive.services.ReactiveLoanService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@Profile("reactive")
+public class ReactiveLoanServiceImpl implements ReactiveLoanService {
+    private static final String BY_BOOK_OR_CUSTOMER = " from loan l join book b on b.id = l.id_book " +
+            "where b.isbn = :isbn or l.customer = :customer";
+
+    private ReactiveLoanRepository loanRepository;
+    private DatabaseClient databaseClient;
+
+    public ReactiveLoanServiceImpl(ReactiveLoanRepository loanRepository, DatabaseClient databaseClient) {
+        this.loanRepository = loanRepository;
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<LoanRecord> save(LoanRecord loan) {
+        loan.setActiveBookId(loan.isReturned() ? null : loan.getBookId());
+
+        return loanRepository.existsActiveByBookId(loan.getBookId())
+                .flatMap(loaned -> loaned
+                        ? Mono.<LoanRecord>error(new BusinessRuleException("Book already loaned"))
+                        : loanRepository.save(loan))
+                // a concurrent loan of the same book won the unique active_book_id column
+                .onErrorMap(ex -> ConstraintViolations.violates(ex, ConstraintViolations.ACTIVE_LOAN),
+                        ex -> new BusinessRuleException("Book already loaned"));
+    }
+
+    @Override
+    public Mono<LoanRecord> findById(Long id) {
+        return loanRepository.findById(id);
+    }
+
+    @Override
+    public Mono<LoanRecord> update(LoanRecord loan) {
+        loan.setActiveBookId(loan.isReturned() ? null : loan.getBookId());
+
+        return loanRepository.save(loan)
+                .onErrorMap(ex -> ConstraintViolations.violates(ex, ConstraintViolations.ACTIVE_LOAN),
+                        ex -> new BusinessRuleException("Book already loaned"));
+    }
+
+    @Override
+    public Mono<Page<LoanDTO>> findDetails(String isbn, String customer, Pageable params) {
+        Mono<List<LoanDTO>> content = bindFilter(databaseClient.sql("select l.id, l.customer, b.id as book_id, b.title, "
+                + "b.author, b.isbn" + BY_BOOK_OR_CUSTOMER + " order by l.id limit :limit offset :offset"), isbn, customer)
+                .bind("limit", params.getPageSize())
+                .bind("offset", params.getOffset())
+                .map((row, metadata) -> new LoanDTO(row.get("id", Long.class), row.get("customer", String.class),
+                        row.get("book_id", Long.class), row.get("title", String.class),
+                        row.get("author", String.class), row.get("isbn", String.class)))
+                .all()
+                .collectList();
+        Mono<Long> total = bindFilter(databaseClient.sql("select count(*)" + BY_BOOK_OR_CUSTOMER), isbn, customer)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+
+        // one query after the other: zipping them holds two pooled connections per request and
+        // starves the pool once concurrent requests outnumber its connections
+        return content.flatMap(list -> total.map(count -> new PageImpl<>(list, params, count)));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindFilter(DatabaseClient.GenericExecuteSpec spec, String isbn,
+                                                              String customer) {
+        spec = isbn == null ? spec.bindNull("isbn", String.class) : spec.bind("isbn", isbn);
+
+        return customer == null ? spec.bindNull("customer", String.class) : spec.bind("customer", customer);
+    }
+}
@@ -1,12 +1,15 @@
 package br.com.rodrigo.services;
 
+import br.com.rodrigo.DTOs.BookDTO;
 import br.com.rodrigo.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public interface BookService {
@@ -16,11 +19,26 @@ public interface BookService {
 
     Optional<Book> findById(Long any);
 
+    // for read-then-write flows: reads the primary, never a lagging replica or the ISBN cache
+    Optional<Book> findByIdOnPrimary(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
-    Page<Book> find(Book book, Pageable params);
+    Page<BookDTO> find(Book book, Pageable params);
+
+    Slice<BookDTO> findSlice(Book book, Pageable params);
+
+    Page<BookDTO> findWithEstimatedCount(Book book, Pageable params);
+
+    Slice<BookDTO> findAfter(Book book, Long lastId, int size);
 
     Optional<Book> findBookByIsbn(String isbn);
+
+    Optional<Book> findBookByIsbnOnPrimary(String isbn);
+
+    List<Book> importBooks(List<Book> books);
+
+    long exportAll(Consumer<Book> consumer);
 }
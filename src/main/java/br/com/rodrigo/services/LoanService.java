@@ -1,11 +1,16 @@
 package br.com.rodrigo.services;
 
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.DTOs.LoanReturnResultDTO;
 import br.com.rodrigo.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -14,7 +19,20 @@ public interface LoanService {
 
     Optional<Loan> findById(Long id);
 
+    // for read-then-write flows: reads the primary, never a lagging replica
+    Optional<Loan> findByIdOnPrimary(Long id);
+
     Loan update(Loan loan);
 
     Page<Loan> find(Loan loan, Pageable params);
+
+    Page<LoanDTO> findDetails(Loan loan, Pageable params);
+
+    Slice<LoanDTO> findDetailsSlice(Loan loan, Pageable params);
+
+    Page<LoanDTO> findDetailsWithEstimatedCount(Loan loan, Pageable params);
+
+    Slice<Loan> findAfter(Loan loan, Long lastId, int size);
+
+    List<LoanReturnResultDTO> returnLoans(Collection<Long> ids, Collection<String> isbns);
 }
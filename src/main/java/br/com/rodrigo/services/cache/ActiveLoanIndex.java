@@ -0,0 +1,57 @@
+package br.com.rodrigo.services.cache;
+
+import br.com.rodrigo.model.repositories.LoanRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of books with an active loan on this instance. It is only a hint: a miss lets a loan skip
+ * the availability query, a hit is confirmed against the database, and until build() has run
+ * callers check the database instead.
+ */
+@Component
+@Profile("!reactive")
+public class ActiveLoanIndex {
+    private LoanRepository loanRepository;
+    private boolean enabled;
+    private Set<Long> loanedBookIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public ActiveLoanIndex(LoanRepository loanRepository,
+                           @Value("${library.loans.active-index.enabled:true}") boolean enabled) {
+        this.loanRepository = loanRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if(!enabled) {
+            return;
+        }
+
+        loanedBookIds.addAll(loanRepository.findLoanedBookIds());
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isLoaned(Long bookId) {
+        return loanedBookIds.contains(bookId);
+    }
+
+    public void markLoaned(Long bookId) {
+        loanedBookIds.add(bookId);
+    }
+
+    public void markReturned(Long bookId) {
+        loanedBookIds.remove(bookId);
+    }
+}
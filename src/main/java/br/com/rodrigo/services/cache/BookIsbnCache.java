@@ -0,0 +1,63 @@
+package br.com.rodrigo.services.cache;
+
+import br.com.rodrigo.model.entity.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+@Component
+public class BookIsbnCache implements MeterBinder {
+    public static final String NAME = "books-by-isbn";
+
+    private Cache<String, Book> cache;
+
+    public BookIsbnCache(@Value("${library.cache.books-by-isbn.expire-after-write:10m}") Duration expireAfterWrite,
+                         @Value("${library.cache.books-by-isbn.maximum-size:1000}") long maximumSize) {
+        // Caffeine evicts with W-TinyLFU, so a burst of one-off ISBNs does not push out the popular ones; the
+        // expiry bounds how long an entry written by a load racing an update can outlive it
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Book> get(String isbn, Function<String, Optional<Book>> loader) {
+        if(isbn == null) {
+            return loader.apply(null);
+        }
+
+        // misses are not cached: a book created later must be found on the next lookup. Callers get their own
+        // copy, so changing the returned book never changes the cached one
+        return Optional.ofNullable(cache.get(isbn, key -> loader.apply(key).orElse(null)))
+                .map(book -> book.toBuilder().build());
+    }
+
+    public void invalidate(String isbn) {
+        if(isbn != null) {
+            cache.invalidate(isbn);
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.rodrigo.services.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate totals for listing filters. The first request for a filter counts on the caller's
+ * thread; after refresh-after has passed, readers get the cached total while a background
+ * reload runs the count query again.
+ */
+@Component
+public class CountCache implements MeterBinder {
+    public static final String NAME = "listing-counts";
+
+    private LoadingCache<Key, Long> cache;
+
+    public CountCache(@Value("${library.cache.counts.refresh-after:30s}") Duration refreshAfter,
+                      @Value("${library.cache.counts.expire-after:10m}") Duration expireAfter,
+                      @Value("${library.cache.counts.maximum-size:1000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build(key -> key.counter.getAsLong());
+    }
+
+    public long get(String query, List<?> params, LongSupplier counter) {
+        return cache.get(new Key(query, params, counter));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    private static class Key {
+        private final String query;
+        private final List<?> params;
+        private final LongSupplier counter;
+
+        Key(String query, List<?> params, LongSupplier counter) {
+            this.query = query;
+            this.params = params;
+            this.counter = counter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+
+            return query.equals(other.query) && params.equals(other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, params);
+        }
+    }
+}
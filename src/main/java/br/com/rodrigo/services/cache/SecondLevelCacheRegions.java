@@ -0,0 +1,55 @@
+package br.com.rodrigo.services.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Caffeine caches behind Hibernate's second-level cache regions. application.conf turns on
+ * Caffeine's native statistics for them, so they report like the other caches of this package.
+ */
+@Component
+@Profile("!reactive")
+public class SecondLevelCacheRegions implements MeterBinder {
+    public static final String NAME_PREFIX = "hibernate.";
+
+    private EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheRegions(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public Map<String, Cache<?, ?>> regions() {
+        Map<String, Cache<?, ?>> regions = new TreeMap<>();
+        CacheImplementor cache = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache();
+        if (!(cache.getRegionFactory() instanceof JCacheRegionFactory)) {
+            return regions;
+        }
+
+        CacheManager cacheManager = ((JCacheRegionFactory) cache.getRegionFactory()).getCacheManager();
+        for (String regionName : cache.getCacheRegionNames()) {
+            javax.cache.Cache<?, ?> region = cacheManager.getCache(regionName);
+            if (region != null) {
+                regions.put(NAME_PREFIX + regionName, region.unwrap(Cache.class));
+            }
+        }
+
+        return regions;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        regions().forEach((name, region) -> CaffeineCacheMetrics.monitor(registry, region, name));
+    }
+}
@@ -0,0 +1,32 @@
+package br.com.rodrigo.services.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by key hash. Callers working on different keys rarely wait on
+ * each other, and memory stays bounded no matter how many keys exist.
+ */
+public class StripedLocks {
+    private final Lock[] stripes;
+
+    public StripedLocks(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock get(Object key) {
+        int hash = Objects.hashCode(key);
+        hash ^= (hash >>> 16);
+
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
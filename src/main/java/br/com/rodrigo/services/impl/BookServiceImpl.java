@@ -1,27 +1,65 @@
 package br.com.rodrigo.services.impl;
 
+import br.com.rodrigo.DTOs.BookDTO;
 import br.com.rodrigo.exceptions.BusinessRuleException;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.services.BookService;
 import br.com.rodrigo.model.repositories.BookRepository;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import br.com.rodrigo.services.cache.BookIsbnCache;
+import br.com.rodrigo.services.cache.CountCache;
+import br.com.rodrigo.services.concurrent.SingleFlight;
+import br.com.rodrigo.services.search.BookSearchIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
 public class BookServiceImpl implements BookService {
+    public static final String COALESCED_METRIC = "library.books.lookups.coalesced";
 
     private BookRepository bookRepository;
+    private BookIsbnCache bookIsbnCache;
+    private BookSearchIndex bookSearchIndex;
+    private CountCache countCache;
+    // waiting callers get their own copy: the book is detached and callers such as update modify it
+    private SingleFlight<Long, Optional<Book>> byIdFlight = new SingleFlight<>(BookServiceImpl::copyOf);
+    private SingleFlight<String, Optional<Book>> byIsbnFlight = new SingleFlight<>(BookServiceImpl::copyOf);
 
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, BookIsbnCache bookIsbnCache,
+                           BookSearchIndex bookSearchIndex, CountCache countCache, MeterRegistry registry) {
         this.bookRepository = bookRepository;
+        this.bookIsbnCache = bookIsbnCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.countCache = countCache;
+        // lookups answered by joining another caller's load instead of querying the database
+        FunctionCounter.builder(COALESCED_METRIC, byIdFlight, SingleFlight::coalesced).tag("lookup", "id")
+                .register(registry);
+        FunctionCounter.builder(COALESCED_METRIC, byIsbnFlight, SingleFlight::coalesced).tag("lookup", "isbn")
+                .register(registry);
     }
 
     @Override
@@ -29,22 +67,39 @@ public class BookServiceImpl implements BookService {
         if(bookRepository.existsByIsbn(book.getIsbn())){
             throw new BusinessRuleException("ISBN already exists.");
         }
-        return bookRepository.save(book);
+        Book savedBook = saveUniqueIsbn(book);
+        bookSearchIndex.index(savedBook);
+
+        return savedBook;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> findAll() {
         List<Book> books = bookRepository.findAll();
 
         return books;
     }
 
+    // no transaction here: callers waiting on a shared load would hold a pooled connection for nothing, and
+    // the repository call runs in its own read-only one
     @Override
     public Optional<Book> findById(Long id) {
         if(id == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id is required");
         }
 
+        return byIdFlight.load(id, () -> bookRepository.findById(id));
+    }
+
+    @Override
+    @Transactional
+    public Optional<Book> findByIdOnPrimary(Long id) {
+        if(id == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id is required");
+        }
+
+        // a read-write transaction keeps the routing data source on the primary
         return bookRepository.findById(id);
     }
 
@@ -54,7 +109,11 @@ public class BookServiceImpl implements BookService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         }
 
+        // invalidated on both sides of the write so a lookup in between cannot keep the old book cached
+        bookIsbnCache.invalidate(book.getIsbn());
         bookRepository.delete(book);
+        bookIsbnCache.invalidate(book.getIsbn());
+        bookSearchIndex.remove(book.getId());
     }
 
     @Override
@@ -63,23 +122,136 @@ public class BookServiceImpl implements BookService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         }
 
-        return bookRepository.save(book);
+        bookIsbnCache.invalidate(book.getIsbn());
+        Book updatedBook = saveUniqueIsbn(book);
+        bookIsbnCache.invalidate(book.getIsbn());
+        bookSearchIndex.index(updatedBook);
+
+        return updatedBook;
+    }
+
+    private Book saveUniqueIsbn(Book book) {
+        try {
+            return bookRepository.save(book);
+        } catch (DataIntegrityViolationException ex) {
+            // the unique isbn index rejected it: another request registered the same ISBN first
+            throw new BusinessRuleException("ISBN already exists.");
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookDTO> find(Book book, Pageable params) {
+        if(canSearchIndex(book, params)) {
+            return findInIndex(book, params);
+        }
+
+        return bookRepository.searchDetails(book, params);
     }
 
     @Override
-    public Page<Book> find(Book book, Pageable params) {
-        Example<Book> example = Example.of(book,
-                ExampleMatcher
-                        .matching()
-                        .withIgnoreCase()
-                        .withIgnoreNullValues()
-                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+    @Transactional(readOnly = true)
+    public Slice<BookDTO> findSlice(Book book, Pageable params) {
+        if(canSearchIndex(book, params)) {
+            Page<BookDTO> page = findInIndex(book, params);
+            return new SliceImpl<>(page.getContent(), params, page.hasNext());
+        }
 
-        return bookRepository.findAll(example, params);
+        return bookRepository.searchDetailsSlice(book.getTitle(), book.getAuthor(), book.getIsbn(), params);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookDTO> findWithEstimatedCount(Book book, Pageable params) {
+        if(canSearchIndex(book, params)) {
+            return findInIndex(book, params);
+        }
+
+        Slice<BookDTO> books = bookRepository.searchDetailsSlice(book.getTitle(), book.getAuthor(), book.getIsbn(), params);
+        long total = countCache.get("books", Arrays.asList(book.getTitle(), book.getAuthor(), book.getIsbn()),
+                () -> bookRepository.countSearch(book.getTitle(), book.getAuthor(), book.getIsbn()));
+
+        return new PageImpl<>(books.getContent(), params, total);
+    }
+
+    private boolean canSearchIndex(Book book, Pageable params) {
+        return bookSearchIndex.isReady() && book.getId() == null && params.isPaged() && params.getSort().isUnsorted();
+    }
+
+    private Page<BookDTO> findInIndex(Book book, Pageable params) {
+        Page<Long> ids = bookSearchIndex.search(book.getTitle(), book.getAuthor(), book.getIsbn(), params);
+        List<BookDTO> books = new ArrayList<>();
+        if(ids.hasContent()) {
+            books.addAll(bookRepository.findDetailsByIdIn(ids.getContent()));
+        }
+        books.sort(Comparator.comparing(BookDTO::getId));
+
+        return new PageImpl<>(books, params, ids.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookDTO> findAfter(Book book, Long lastId, int size) {
+        return bookRepository.findDetailsAfter(lastId, book.getTitle(), book.getAuthor(), book.getIsbn(),
+                PageRequest.of(0, size));
     }
 
     @Override
     public Optional<Book> findBookByIsbn(String isbn) {
+        if(isbn == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "isbn is required");
+        }
+
+        // outside the cache so that lookups of an unknown ISBN, which the cache does not keep, are shared too
+        return byIsbnFlight.load(isbn, () -> bookIsbnCache.get(isbn, bookRepository::findByIsbn));
+    }
+
+    @Override
+    @Transactional
+    public Optional<Book> findBookByIsbnOnPrimary(String isbn) {
+        if(isbn == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "isbn is required");
+        }
+
         return bookRepository.findByIsbn(isbn);
     }
+
+    @Override
+    @Transactional
+    public List<Book> importBooks(List<Book> books) {
+        if(books.isEmpty()) {
+            return books;
+        }
+
+        Set<String> isbns = books.stream().map(Book::getIsbn).collect(Collectors.toSet());
+        Set<String> takenIsbns = new HashSet<>(bookRepository.findExistingIsbns(isbns));
+        List<Book> newBooks = books.stream()
+                .filter(book -> takenIsbns.add(book.getIsbn()))
+                .collect(Collectors.toList());
+        bookRepository.insertAll(newBooks);
+        if(bookSearchIndex.isReady()) {
+            newBooks.forEach(bookSearchIndex::index);
+        }
+
+        return newBooks;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAll(Consumer<Book> consumer) {
+        long exported = 0;
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            for (Iterator<Book> it = books.iterator(); it.hasNext(); exported++) {
+                Book book = it.next();
+                consumer.accept(book);
+                bookRepository.detach(book);
+            }
+        }
+
+        return exported;
+    }
+
+    private static Optional<Book> copyOf(Optional<Book> book) {
+        return book.map(found -> found.toBuilder().build());
+    }
 }
@@ -1,43 +1,259 @@
 package br.com.rodrigo.services.impl;
 
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.DTOs.LoanReturnResultDTO;
 import br.com.rodrigo.exceptions.BusinessRuleException;
+import br.com.rodrigo.exceptions.ConstraintViolations;
+import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.model.entity.Loan;
 import br.com.rodrigo.model.repositories.LoanRepository;
+import br.com.rodrigo.outbox.Outbox;
+import br.com.rodrigo.outbox.OutboxEvent;
 import br.com.rodrigo.services.LoanService;
+import br.com.rodrigo.services.cache.ActiveLoanIndex;
+import br.com.rodrigo.services.cache.CountCache;
+import br.com.rodrigo.services.concurrent.StripedLocks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 
+@Service
+@Profile("!reactive")
 public class LoanServiceImpl implements LoanService {
     LoanRepository loanRepository;
+    ActiveLoanIndex activeLoanIndex;
+    CountCache countCache;
+    StripedLocks bookLocks;
+    Outbox outbox;
+    int returnBatchSize;
 
-    public LoanServiceImpl(LoanRepository loanRepository) {
+    public LoanServiceImpl(LoanRepository loanRepository, ActiveLoanIndex activeLoanIndex, CountCache countCache,
+                           Outbox outbox, @Value("${library.loans.lock-stripes:64}") int lockStripes,
+                           @Value("${library.loans.return.batch-size:500}") int returnBatchSize) {
         this.loanRepository = loanRepository;
+        this.activeLoanIndex = activeLoanIndex;
+        this.countCache = countCache;
+        this.bookLocks = new StripedLocks(lockStripes);
+        this.outbox = outbox;
+        this.returnBatchSize = returnBatchSize;
     }
 
     @Override
     public Loan save(Loan loan) {
-        if(loanRepository.existsByBookLoanNotReturned(loan.getBook())) {
-            throw new BusinessRuleException("Book already loaned");
+        Long bookId = loan.getBook().getId();
+        Lock lock = bookLocks.get(bookId);
+        lock.lock();
+        try {
+            if(isLoaned(loan.getBook())) {
+                throw new BusinessRuleException("Book already loaned");
+            }
+
+            Loan savedLoan = saveActiveLoan(loan);
+            if(bookId != null) {
+                activeLoanIndex.markLoaned(bookId);
+            }
+
+            return savedLoan;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isLoaned(Book book) {
+        // until the index is built every check goes to the database
+        if(!activeLoanIndex.isReady() || book.getId() == null) {
+            return loanRepository.existsByBookLoanNotReturned(book);
+        }
+        // a miss skips the query, the unique active_book_id column still rejects a loan made elsewhere;
+        // a hit may be stale (returned on another instance or during build), so the database confirms it
+        if(!activeLoanIndex.isLoaned(book.getId())) {
+            return false;
+        }
+        if(loanRepository.existsByBookLoanNotReturned(book)) {
+            return true;
         }
 
-        return loanRepository.save(loan);
+        activeLoanIndex.markReturned(book.getId());
+        return false;
+    }
+
+    private Loan saveActiveLoan(Loan loan) {
+        try {
+            return loanRepository.save(loan);
+        } catch (DataIntegrityViolationException ex) {
+            if(!ConstraintViolations.violates(ex, ConstraintViolations.ACTIVE_LOAN)) {
+                throw ex;
+            }
+            // another instance loaned the book first: the unique active_book_id column rejected this one
+            if(loan.getBook().getId() != null) {
+                activeLoanIndex.markLoaned(loan.getBook().getId());
+            }
+            throw new BusinessRuleException("Book already loaned");
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Loan> findById(Long id) {
         return loanRepository.findById(id);
     }
 
+    @Override
+    @Transactional
+    public Optional<Loan> findByIdOnPrimary(Long id) {
+        return loanRepository.findById(id);
+    }
+
     @Override
     public Loan update(Loan loan) {
-        return loanRepository.save(loan);
+        Long bookId = loan.getBook() == null ? null : loan.getBook().getId();
+        if(bookId == null) {
+            return loanRepository.save(loan);
+        }
+
+        Lock lock = bookLocks.get(bookId);
+        lock.lock();
+        try {
+            Loan updatedLoan = loanRepository.save(loan);
+            if(loan.isReturned()) {
+                activeLoanIndex.markReturned(bookId);
+            } else {
+                activeLoanIndex.markLoaned(bookId);
+            }
+
+            return updatedLoan;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(Loan loan, Pageable params) {
         Page<Loan> response = loanRepository.findByBookOrCustomer(loan.getBook().getIsbn(), loan.getCustomer(), params);
 
         return response;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LoanDTO> findDetails(Loan loan, Pageable params) {
+        return loanRepository.findDetailsByBookOrCustomer(loan.getBook().getIsbn(), loan.getCustomer(), params);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LoanDTO> findDetailsSlice(Loan loan, Pageable params) {
+        return loanRepository.findDetailsSliceByBookOrCustomer(loan.getBook().getIsbn(), loan.getCustomer(), params);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LoanDTO> findDetailsWithEstimatedCount(Loan loan, Pageable params) {
+        String isbn = loan.getBook().getIsbn();
+        Slice<LoanDTO> loans = loanRepository.findDetailsSliceByBookOrCustomer(isbn, loan.getCustomer(), params);
+        long total = countCache.get("loans", Arrays.asList(isbn, loan.getCustomer()),
+                () -> loanRepository.countByBookOrCustomer(isbn, loan.getCustomer()));
+
+        return new PageImpl<>(loans.getContent(), params, total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> findAfter(Loan loan, Long lastId, int size) {
+        return loanRepository.findByBookOrCustomerAfter(lastId, loan.getBook().getIsbn(), loan.getCustomer(),
+                PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional
+    public List<LoanReturnResultDTO> returnLoans(Collection<Long> ids, Collection<String> isbns) {
+        // a concurrent cart returning the same loans waits here, then reads them as already returned
+        for (List<Long> batch : partition(ids)) {
+            loanRepository.lockBooksOfLoans(batch);
+        }
+        for (List<String> batch : partition(isbns)) {
+            loanRepository.lockBooksByIsbnIn(batch);
+        }
+
+        Map<Long, Loan> loansById = new HashMap<>();
+        for (List<Long> batch : partition(ids)) {
+            loanRepository.findWithBookByIdIn(batch).forEach(loan -> loansById.put(loan.getId(), loan));
+        }
+        Map<String, Loan> activeLoansByIsbn = new HashMap<>();
+        for (List<String> batch : partition(isbns)) {
+            loanRepository.findActiveByIsbnIn(batch)
+                    .forEach(loan -> activeLoansByIsbn.put(loan.getBook().getIsbn(), loan));
+        }
+
+        List<LoanReturnResultDTO> results = new ArrayList<>(ids.size() + isbns.size());
+        Map<Long, Loan> returning = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Loan loan = loansById.get(id);
+            if (loan == null) {
+                results.add(returnResult(id, null, LoanReturnResultDTO.Status.NOT_FOUND));
+            } else if (loan.isReturned()) {
+                results.add(returnResult(id, loan.getBook().getIsbn(), LoanReturnResultDTO.Status.ALREADY_RETURNED));
+            } else {
+                returning.put(id, loan);
+                results.add(returnResult(id, loan.getBook().getIsbn(), LoanReturnResultDTO.Status.RETURNED));
+            }
+        }
+        for (String isbn : isbns) {
+            Loan loan = activeLoansByIsbn.get(isbn);
+            if (loan == null) {
+                results.add(returnResult(null, isbn, LoanReturnResultDTO.Status.NOT_FOUND));
+            } else {
+                returning.put(loan.getId(), loan);
+                results.add(returnResult(loan.getId(), isbn, LoanReturnResultDTO.Status.RETURNED));
+            }
+        }
+
+        for (List<Long> batch : partition(returning.keySet())) {
+            loanRepository.markReturned(batch);
+        }
+        // the bulk update bypasses Hibernate's events, so the outbox is told directly
+        List<OutboxEvent> events = new ArrayList<>(returning.size());
+        for (Loan loan : returning.values()) {
+            loan.setReturned(true);
+            events.add(OutboxEvent.of(OutboxEvent.LOAN_RETURNED, loan));
+        }
+        outbox.append(events);
+        returning.values().forEach(loan -> activeLoanIndex.markReturned(loan.getBook().getId()));
+
+        return results;
+    }
+
+    private LoanReturnResultDTO returnResult(Long id, String isbn, LoanReturnResultDTO.Status status) {
+        return LoanReturnResultDTO.builder().id(id).isbn(isbn).status(status).build();
+    }
+
+    private <T> List<List<T>> partition(Collection<T> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += returnBatchSize) {
+            batches.add(distinct.subList(from, Math.min(from + returnBatchSize, distinct.size())));
+        }
+
+        return batches;
+    }
 }
@@ -0,0 +1,108 @@
+package br.com.rodrigo.services.overdue;
+
+import br.com.rodrigo.DTOs.OverdueLoanDTO;
+import br.com.rodrigo.model.entity.OverdueNotice;
+import br.com.rodrigo.model.repositories.LoanRepository;
+import br.com.rodrigo.model.repositories.OverdueNoticeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records an {@link OverdueNotice} for every loan still out after the loan period. Loans are read in
+ * chunks of {@code library.loans.overdue.chunk-size}, walking the (isReturned, loanDate) index by
+ * (loanDate, id), and each chunk's notices are written in their own transaction, so a run never holds
+ * more than one chunk in memory. A loan gets one notice, however many runs see it.
+ */
+@Component
+@Profile("!reactive")
+public class OverdueLoanScanner {
+    public static final String SCAN_METRIC = "library.loans.overdue.scan";
+    public static final String SCANNED_METRIC = "library.loans.overdue.scanned";
+    public static final String NOTICES_METRIC = "library.loans.overdue.notices";
+
+    private LoanRepository loanRepository;
+    private OverdueNoticeRepository noticeRepository;
+    private TransactionTemplate transaction;
+    private MeterRegistry registry;
+    private int loanPeriodDays;
+    private int chunkSize;
+
+    public OverdueLoanScanner(LoanRepository loanRepository, OverdueNoticeRepository noticeRepository,
+                              PlatformTransactionManager transactionManager, MeterRegistry registry,
+                              @Value("${library.loans.period-days:14}") int loanPeriodDays,
+                              @Value("${library.loans.overdue.chunk-size:500}") int chunkSize) {
+        this.loanRepository = loanRepository;
+        this.noticeRepository = noticeRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.registry = registry;
+        this.loanPeriodDays = loanPeriodDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${library.loans.overdue.cron:0 0 2 * * *}")
+    public void scheduledScan() {
+        scan(LocalDate.now());
+    }
+
+    /**
+     * @return the number of overdue loans read
+     */
+    public long scan(LocalDate today) {
+        LocalDate dueBefore = today.minusDays(loanPeriodDays);
+        long start = registry.config().clock().monotonicTime();
+        long scanned = 0;
+        long recorded = 0;
+
+        List<OverdueLoanDTO> chunk = loanRepository.findOverdue(dueBefore, PageRequest.of(0, chunkSize));
+        while (!chunk.isEmpty()) {
+            scanned += chunk.size();
+            recorded += record(chunk, today);
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+
+            OverdueLoanDTO last = chunk.get(chunk.size() - 1);
+            chunk = loanRepository.findOverdueAfter(dueBefore, last.getLoanDate(), last.getId(),
+                    PageRequest.of(0, chunkSize));
+        }
+
+        registry.timer(SCAN_METRIC).record(registry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+        registry.counter(SCANNED_METRIC).increment(scanned);
+        registry.counter(NOTICES_METRIC).increment(recorded);
+
+        return scanned;
+    }
+
+    private int record(List<OverdueLoanDTO> chunk, LocalDate today) {
+        return transaction.execute(status -> {
+            Set<Long> noticed = noticeRepository.findLoanIdsIn(
+                    chunk.stream().map(OverdueLoanDTO::getId).collect(Collectors.toList()));
+            List<OverdueNotice> notices = chunk.stream()
+                    .filter(loan -> !noticed.contains(loan.getId()))
+                    .map(loan -> OverdueNotice.builder()
+                            .loanId(loan.getId())
+                            .customer(loan.getCustomer())
+                            .isbn(loan.getIsbn())
+                            .loanDate(loan.getLoanDate())
+                            .dueDate(loan.getLoanDate().plusDays(loanPeriodDays))
+                            .noticeDate(today)
+                            .build())
+                    .collect(Collectors.toList());
+            noticeRepository.saveAll(notices);
+
+            return notices.size();
+        });
+    }
+}
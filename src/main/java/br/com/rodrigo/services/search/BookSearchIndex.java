@@ -0,0 +1,223 @@
+package br.com.rodrigo.services.search;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.repositories.BookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Trigram index over book titles and authors. A query term selects the ids present in the
+ * postings of all its trigrams, and every candidate is then checked with a plain substring
+ * match, so results are the same as the case-insensitive CONTAINING query on the database.
+ * Books are kept in id order, so an unfiltered page is a skip and a limit instead of a sort of
+ * the whole catalog.
+ */
+@Component
+@Profile("!reactive")
+public class BookSearchIndex {
+    private static final int GRAM_SIZE = 3;
+    private static final int LOAD_PAGE_SIZE = 1000;
+    private static final String TITLE = "t:";
+    private static final String AUTHOR = "a:";
+
+    private BookRepository bookRepository;
+    private boolean enabled;
+    private ConcurrentNavigableMap<Long, IndexedBook> books = new ConcurrentSkipListMap<>();
+    // the skip list counts its entries on every size() call
+    private AtomicInteger size = new AtomicInteger();
+    private Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository bookRepository,
+                           @Value("${library.search.index.enabled:true}") boolean enabled) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if(!enabled) {
+            return;
+        }
+
+        Pageable pageable = PageRequest.of(0, LOAD_PAGE_SIZE, Sort.by("id"));
+        Page<Book> page;
+        do {
+            page = bookRepository.findAll(pageable);
+            page.forEach(this::index);
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Book book) {
+        if(book == null || book.getId() == null) {
+            return;
+        }
+
+        Long id = book.getId();
+        IndexedBook indexed = new IndexedBook(normalize(book.getTitle()), normalize(book.getAuthor()),
+                normalize(book.getIsbn()));
+        // new postings go in before stale ones come out, so readers always find the book under
+        // its old or its new terms; compute serializes concurrent updates of the same book
+        books.compute(id, (key, previous) -> {
+            if(previous == null) {
+                size.incrementAndGet();
+            }
+            Set<String> titleGrams = grams(indexed.title);
+            Set<String> authorGrams = grams(indexed.author);
+            titleGrams.forEach(gram -> addPosting(TITLE + gram, id));
+            authorGrams.forEach(gram -> addPosting(AUTHOR + gram, id));
+            if(previous != null) {
+                grams(previous.title).stream().filter(gram -> !titleGrams.contains(gram))
+                        .forEach(gram -> removePosting(TITLE + gram, id));
+                grams(previous.author).stream().filter(gram -> !authorGrams.contains(gram))
+                        .forEach(gram -> removePosting(AUTHOR + gram, id));
+            }
+            return indexed;
+        });
+    }
+
+    public void remove(Long id) {
+        books.computeIfPresent(id, (key, indexed) -> {
+            grams(indexed.title).forEach(gram -> removePosting(TITLE + gram, id));
+            grams(indexed.author).forEach(gram -> removePosting(AUTHOR + gram, id));
+            size.decrementAndGet();
+            return null;
+        });
+    }
+
+    public Page<Long> search(String title, String author, String isbn, Pageable pageable) {
+        if(title == null && author == null && isbn == null) {
+            List<Long> ids = books.keySet().stream().skip(pageable.getOffset()).limit(pageable.getPageSize())
+                    .collect(Collectors.toList());
+            return new PageImpl<>(ids, pageable, size.get());
+        }
+
+        List<Long> ids = search(title, author, isbn);
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        return new PageImpl<>(ids.subList(from, Math.min(from + pageable.getPageSize(), ids.size())), pageable,
+                ids.size());
+    }
+
+    public List<Long> search(String title, String author, String isbn) {
+        String titleTerm = normalize(title);
+        String authorTerm = normalize(author);
+        String isbnTerm = normalize(isbn);
+
+        Set<Long> candidates = narrowest(candidates(TITLE, titleTerm), candidates(AUTHOR, authorTerm));
+        // the books map is already in id order; only trigram candidates need sorting
+        return (candidates == null ? books.keySet().stream() : candidates.stream().sorted())
+                .filter(id -> {
+                    IndexedBook indexed = books.get(id);
+                    return indexed != null
+                            && contains(indexed.title, titleTerm)
+                            && contains(indexed.author, authorTerm)
+                            && contains(indexed.isbn, isbnTerm);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Set<Long> candidates(String field, String term) {
+        if(term == null || term.length() < GRAM_SIZE) {
+            return null;
+        }
+
+        List<Set<Long>> sets = new ArrayList<>();
+        for (String gram : grams(term)) {
+            Set<Long> posting = postings.get(field + gram);
+            if(posting == null) {
+                return Collections.emptySet();
+            }
+            sets.add(posting);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        return sets.get(0).stream()
+                .filter(id -> sets.stream().skip(1).allMatch(set -> set.contains(id)))
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Long> narrowest(Set<Long> first, Set<Long> second) {
+        if(first == null || second == null) {
+            return first == null ? second : first;
+        }
+
+        return first.size() <= second.size() ? first : second;
+    }
+
+    private void addPosting(String key, Long id) {
+        postings.compute(key, (k, ids) -> {
+            Set<Long> posting = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            posting.add(id);
+            return posting;
+        });
+    }
+
+    private void removePosting(String key, Long id) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> grams(String value) {
+        if(value == null || value.length() < GRAM_SIZE) {
+            return Collections.emptySet();
+        }
+
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+
+        return grams;
+    }
+
+    private static boolean contains(String value, String term) {
+        return term == null || (value != null && value.contains(term));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static class IndexedBook {
+        private final String title;
+        private final String author;
+        private final String isbn;
+
+        IndexedBook(String title, String author, String isbn) {
+            this.title = title;
+            this.author = author;
+            this.isbn = isbn;
+        }
+    }
+}
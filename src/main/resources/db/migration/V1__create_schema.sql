@@ -0,0 +1,39 @@
+-- the schema Hibernate generated from Book, Loan and OverdueNotice before migrations took it over
+create sequence book_seq start with 1 increment by ${id_allocation_size};
+create sequence loan_seq start with 1 increment by ${id_allocation_size};
+create sequence overdue_notice_seq start with 1 increment by ${id_allocation_size};
+
+create table book (
+    id bigint not null,
+    author varchar(255),
+    isbn varchar(255),
+    title varchar(255),
+    version bigint,
+    constraint pk_book primary key (id)
+);
+
+create table loan (
+    id bigint not null,
+    active_book_id bigint,
+    customer varchar(255),
+    is_returned boolean not null,
+    loan_date date,
+    id_book bigint,
+    constraint pk_loan primary key (id),
+    constraint uk_loan_active_book_id unique (active_book_id),
+    constraint fk_loan_book foreign key (id_book) references book (id)
+);
+
+create index idx_loan_returned_loan_date on loan (is_returned, loan_date);
+
+create table overdue_notice (
+    id bigint not null,
+    customer varchar(255),
+    due_date date,
+    isbn varchar(255),
+    loan_date date,
+    loan_id bigint,
+    notice_date date,
+    constraint pk_overdue_notice primary key (id),
+    constraint uk_overdue_notice_loan_id unique (loan_id)
+);
@@ -0,0 +1,8 @@
+-- BookRepository.findByIsbn / existsByIsbn; also closes the race between the service's ISBN check and its insert
+create unique index uk_book_isbn on book (isbn);
+
+-- LoanRepository.existsByBookLoanNotReturned
+create index idx_loan_book_returned on loan (id_book, is_returned);
+
+-- the customer side of the loan listings
+create index idx_loan_customer on loan (customer);
@@ -0,0 +1,10 @@
+-- identity ids follow insert order, which the relay publishes in; rows are deleted once delivered
+create table outbox_event (
+    id bigint generated by default as identity,
+    aggregate_type varchar(50) not null,
+    aggregate_id bigint not null,
+    event_type varchar(50) not null,
+    payload varchar(4000) not null,
+    created_at timestamp not null,
+    constraint pk_outbox_event primary key (id)
+);
@@ -0,0 +1,20 @@
+create table if not exists book (
+    id bigint generated by default as identity primary key,
+    author varchar(255),
+    isbn varchar(255),
+    title varchar(255),
+    version bigint
+);
+
+create table if not exists loan (
+    id bigint generated by default as identity primary key,
+    active_book_id bigint,
+    customer varchar(255),
+    is_returned boolean not null,
+    loan_date date,
+    id_book bigint references book (id),
+    constraint uk_loan_active_book_id unique (active_book_id)
+);
+
+-- named as in the Flyway schema, so a duplicate ISBN and a second active loan map to the same business rules
+create unique index if not exists uk_book_isbn on book (isbn);
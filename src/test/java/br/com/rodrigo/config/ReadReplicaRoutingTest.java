@@ -0,0 +1,129 @@
+package br.com.rodrigo.config;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.DTOs.LoanReturnedDTO;
+import br.com.rodrigo.controllers.BookController;
+import br.com.rodrigo.controllers.LoanController;
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.services.BookService;
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.jdbc-url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "library.datasource.replica.username=sa",
+        "library.datasource.replica.lag-query=select seconds from replica_lag",
+        "library.datasource.replica.max-lag=10s"})
+public class ReadReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookController bookController;
+    @Autowired
+    private LoanController loanController;
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    public void setUp() {
+        // o replica recebe o mesmo schema, como se fosse replicado do primario
+        Flyway.configure().dataSource(replica.getDataSource())
+                .placeholders(Collections.singletonMap("id_allocation_size", "50")).load().migrate();
+        replica.execute("create table if not exists replica_lag (seconds int)");
+        replica.update("delete from replica_lag");
+        replica.update("insert into replica_lag values (0)");
+        lagMonitor.check();
+    }
+
+    @Test
+    @DisplayName("Should Read Through The Replica In Read Only Transactions")
+    public void shouldReadThroughReplica() {
+        // cenario
+        replica.update("insert into book (id, title, author, isbn, version) values (1001, 'Replica', 'Author', 'r-1001', 0)");
+
+        // acao
+        Book book = bookService.findById(1001L).orElse(null);
+
+        // verificacao
+        Assertions.assertThat(lagMonitor.isUsable()).isTrue();
+        Assertions.assertThat(book).isNotNull();
+        Assertions.assertThat(book.getTitle()).isEqualTo("Replica");
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from book where id = 1001", Long.class))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Should Write To The Primary")
+    public void shouldWriteToPrimary() {
+        // acao
+        Book book = bookService.save(Book.builder().isbn("p-1").title("Primary").author("Author").build());
+
+        // verificacao
+        Assertions.assertThat(jdbcTemplate.queryForObject("select title from book where id = ?", String.class,
+                book.getId())).isEqualTo("Primary");
+        Assertions.assertThat(replica.queryForObject("select count(*) from book where isbn = 'p-1'", Long.class))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Should Read Write Paths From The Primary While The Replica Is Behind")
+    public void shouldReadWritePathsFromPrimary() {
+        // cenario: outra instancia gravou o livro no primario (fora dos caches desta) e o replica,
+        // "em dia" pelo monitor, ainda nao o recebeu
+        jdbcTemplate.update("insert into book (id, title, author, isbn, version) values (2001, 'Primary', 'Author', 'p-2', 0)");
+        jdbcTemplate.update("insert into book (id, title, author, isbn, version) values (2002, 'Primary', 'Author', 'p-3', 0)");
+        BookDTO changes = BookDTO.builder().isbn("p-2").title("Updated").author("Author").build();
+
+        // acao
+        ResponseEntity<BookDTO> updated = bookController.update(2001L, changes, "\"0\"");
+        ResponseEntity<LoanDTO> loan = loanController.create(LoanDTO.builder().isbn("p-3").customer("Fulano").build());
+        ResponseEntity returned = loanController.update(loan.getBody().getId(), new LoanReturnedDTO(true));
+
+        // verificacao
+        Assertions.assertThat(lagMonitor.isUsable()).isTrue();
+        Assertions.assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select title from book where id = 2001", String.class))
+                .isEqualTo("Updated");
+        Assertions.assertThat(loan.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Assertions.assertThat(returned.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(replica.queryForObject("select count(*) from book where id in (2001, 2002)", Long.class))
+                .isZero();
+        Assertions.assertThat(replica.queryForObject("select count(*) from loan", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should Fall Back To The Primary While The Replica Lags")
+    public void shouldFallBackToPrimaryWhileReplicaLags() {
+        // cenario
+        replica.update("insert into book (id, title, author, isbn, version) values (1002, 'Stale', 'Author', 'r-1002', 0)");
+        replica.update("update replica_lag set seconds = 60");
+        lagMonitor.check();
+
+        // acao
+        boolean found = bookService.findById(1002L).isPresent();
+
+        // verificacao
+        Assertions.assertThat(lagMonitor.isUsable()).isFalse();
+        Assertions.assertThat(found).isFalse();
+    }
+}
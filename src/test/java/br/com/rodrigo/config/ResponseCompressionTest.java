@@ -0,0 +1,59 @@
+package br.com.rodrigo.config;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.services.BookService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ResponseCompressionTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown() {
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should Gzip Large Pages Of Books")
+    public void shouldGzipLargePagesOfBooks() throws Exception {
+        // cenario: 100 livros passam bem dos 8KB de server.compression.min-response-size
+        for (int i = 0; i < 100; i++) {
+            bookService.save(Book.builder().isbn("gz-" + i).title("Compressed Title " + i)
+                    .author("Compressed Author " + i).build());
+        }
+        // o HttpClient do JDK nao descompacta sozinho, entao os cabecalhos chegam como o servidor mandou
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books?page=0&size=100"))
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .build();
+
+        // acao
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        // verificacao
+        Assertions.assertThat(response.statusCode()).isEqualTo(200);
+        Assertions.assertThat(response.headers().firstValue("ETag")).hasValueSatisfying(
+                eTag -> Assertions.assertThat(eTag).startsWith("W/\""));
+        Assertions.assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.rodrigo.config;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.repositories.BookRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(SequenceAligner.class)
+public class SequenceAlignerTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    SequenceAligner sequenceAligner;
+
+    @Test
+    @DisplayName("Should Move Sequence Past Ids Numbered Before It Existed")
+    public void shouldMoveSequencePastExistingIds() {
+        // cenario
+        jdbcTemplate.update("INSERT INTO book (id, title, author, isbn, version) VALUES (1000, 'Watchmen', 'Alan Moore', '123', 0)");
+
+        // acao
+        sequenceAligner.align("book", "book_seq");
+        Book saved = bookRepository.saveAndFlush(Book.builder().title("The Dark Knight").author("Frank Miller").isbn("124").build());
+
+        // verificacao
+        Assertions.assertThat(saved.getId()).isGreaterThan(1000L);
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.rodrigo.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class VirtualThreadsConfigTest {
+
+    @Test
+    @DisplayName("Should Run Tasks On Virtual Threads Or Refuse Before Java 21")
+    public void shouldRunTasksOnVirtualThreadsOrRefuseBeforeJava21() throws Exception {
+        if (Runtime.version().feature() < 21) {
+            // acao/verificacao
+            Assertions.assertThatThrownBy(VirtualThreadsConfig::newVirtualThreadPerTaskExecutor)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Java 21");
+            return;
+        }
+
+        // cenario
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor();
+
+        // acao
+        Future<Object> isVirtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+
+        // verificacao
+        Assertions.assertThat(isVirtual.get()).isEqualTo(true);
+        executor.shutdown();
+    }
+}
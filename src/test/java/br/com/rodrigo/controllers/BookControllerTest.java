@@ -1,10 +1,16 @@
 package br.com.rodrigo.controllers;
 
 import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.arguments.Cursor;
 import br.com.rodrigo.exceptions.BusinessRuleException;
+import br.com.rodrigo.mappers.BookMapperImpl;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.services.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,10 +21,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,10 +38,12 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(BookController.class)
+@Import(BookMapperImpl.class)
 @AutoConfigureMockMvc
 public class BookControllerTest {
     private static String BOOK_API = "/api/books";
@@ -156,7 +169,7 @@ public class BookControllerTest {
     @DisplayName("Should Return NotFound Book On Delete")
     public void shouldReturnNotFoundBookOnDelete() throws Exception {
         // cenario
-        BDDMockito.given(bookService.findById(BDDMockito.anyLong()))
+        BDDMockito.given(bookService.findByIdOnPrimary(BDDMockito.anyLong()))
                 .willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -172,7 +185,7 @@ public class BookControllerTest {
     public void shouldReturnNoContentOnDeleteSuccess() throws Exception {
         Book book = Book.builder().id(1L).author("Frank Miller").isbn("123456")
                 .title("The Dark Knight").build();
-        BDDMockito.given(bookService.findById(BDDMockito.anyLong()))
+        BDDMockito.given(bookService.findByIdOnPrimary(BDDMockito.anyLong()))
                 .willReturn(Optional.of(book));
 
         // acao
@@ -193,7 +206,7 @@ public class BookControllerTest {
                 .title("The Dark Knight").build();
         String json = new ObjectMapper().writeValueAsString(book);
 
-        BDDMockito.given(bookService.findById(BDDMockito.anyLong()))
+        BDDMockito.given(bookService.findByIdOnPrimary(BDDMockito.anyLong()))
                 .willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.put(BOOK_API.concat("/" + 1))
@@ -219,7 +232,7 @@ public class BookControllerTest {
                 .title("The Dark K").build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        BDDMockito.given(bookService.findById(id))
+        BDDMockito.given(bookService.findByIdOnPrimary(id))
                 .willReturn(Optional.of(updatingBook));
         BDDMockito.given(bookService.update(updatingBook))
                 .willReturn(updatedBook);
@@ -242,12 +255,12 @@ public class BookControllerTest {
     @DisplayName("Should Return List Of Filtered Books")
     public void shouldReturnListOfFilteredBooks() throws Exception {
         // cenario
-        Book bookToReturn = Book.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+        BookDTO bookToReturn = BookDTO.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
         String queryParams = String.format(
                 "?title=%s&author=%s&page=0&size=100", bookToReturn.getTitle(), bookToReturn.getAuthor());
 
         BDDMockito.given(bookService.find(BDDMockito.any(Book.class), BDDMockito.any(Pageable.class)))
-                .willReturn(new PageImpl<Book>(
+                .willReturn(new PageImpl<BookDTO>(
                         Arrays.asList(bookToReturn), PageRequest.of(0, 100), 1));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryParams))
@@ -261,4 +274,296 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100))
                 .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0));
     }
+
+    @Test
+    @DisplayName("Should Return List Of Books As CBOR Or Smile When Asked")
+    public void shouldReturnListOfBooksInBinaryFormats() throws Exception {
+        // cenario
+        BookDTO bookToReturn = BookDTO.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+        BDDMockito.given(bookService.find(BDDMockito.any(Book.class), BDDMockito.any(Pageable.class)))
+                .willReturn(new PageImpl<BookDTO>(Arrays.asList(bookToReturn), PageRequest.of(0, 100), 1));
+        Map<MediaType, ObjectMapper> formats = new LinkedHashMap<>();
+        formats.put(MediaType.APPLICATION_CBOR, new ObjectMapper(new CBORFactory()));
+        formats.put(new MediaType("application", "x-jackson-smile"), new ObjectMapper(new SmileFactory()));
+
+        for (Map.Entry<MediaType, ObjectMapper> format : formats.entrySet()) {
+            // acao
+            MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=100"))
+                    .accept(format.getKey()))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.content().contentType(format.getKey()))
+                    .andExpect(MockMvcResultMatchers.header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)))
+                    .andReturn().getResponse();
+
+            // verificacao
+            JsonNode page = format.getValue().readTree(response.getContentAsByteArray());
+            Assertions.assertThat(page.get("totalElements").asLong()).isEqualTo(1);
+            Assertions.assertThat(page.get("content").get(0).get("title").asText()).isEqualTo("The Dark Knight");
+        }
+    }
+
+    @Test
+    @DisplayName("Should Keep Answering JSON When Any Media Type Is Accepted")
+    public void shouldPreferJsonForAnyMediaType() throws Exception {
+        // cenario
+        BDDMockito.given(bookService.find(BDDMockito.any(Book.class), BDDMockito.any(Pageable.class)))
+                .willReturn(new PageImpl<BookDTO>(Collections.emptyList(), PageRequest.of(0, 100), 0));
+
+        // acao/verificacao
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=100")).accept(MediaType.ALL))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @DisplayName("Should Return Slice Of Books Without Total")
+    public void shouldReturnSliceOfBooksWithoutTotal() throws Exception {
+        // cenario
+        BookDTO bookToReturn = BookDTO.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+
+        BDDMockito.given(bookService.findSlice(BDDMockito.any(Book.class), BDDMockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<>(Arrays.asList(bookToReturn), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Dark&page=0&size=1&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("last").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist());
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should Return Page Of Books With Estimated Total")
+    public void shouldReturnPageOfBooksWithEstimatedTotal() throws Exception {
+        // cenario
+        BookDTO bookToReturn = BookDTO.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+
+        BDDMockito.given(bookService.findWithEstimatedCount(BDDMockito.any(Book.class), BDDMockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Arrays.asList(bookToReturn), PageRequest.of(0, 1), 40));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Dark&page=0&size=1&count=estimated"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(40));
+    }
+
+    @Test
+    @DisplayName("Should Import Books From Ndjson And Report Each Line")
+    public void shouldImportBooksFromNdjson() throws Exception {
+        // cenario
+        String ndjson = "{\"title\":\"The Dark Knight\",\"author\":\"Frank Miller\",\"isbn\":\"123456\"}\n"
+                + "{\"title\":\"Watchmen\",\"author\":\"Alan Moore\",\"isbn\":\"123458\"}\n"
+                + "{\"title\":\"\",\"author\":\"Alan Moore\",\"isbn\":\"123459\"}\n"
+                + "not json\n";
+
+        BDDMockito.given(bookService.importBooks(Mockito.anyList()))
+                .willAnswer(invocation -> {
+                    List<Book> books = invocation.getArgument(0);
+                    return Arrays.asList(books.get(0));
+                });
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(BOOK_API.concat("/import"))
+                .contentType("application/x-ndjson")
+                .accept("application/x-ndjson")
+                .content(ndjson);
+
+        // acao/verificacao
+        String[] lines = mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        Assertions.assertThat(lines).hasSize(4);
+        Assertions.assertThat(lines[0]).contains("\"line\":3", "\"status\":\"INVALID\"");
+        Assertions.assertThat(lines[1]).contains("\"line\":4", "Malformed JSON");
+        Assertions.assertThat(lines[2]).contains("\"line\":1", "\"status\":\"CREATED\"");
+        Assertions.assertThat(lines[3]).contains("\"line\":2", "\"status\":\"DUPLICATED\"");
+    }
+
+    @Test
+    @DisplayName("Should Report Null Lines And Isbns Taken Concurrently Without Aborting The Import")
+    public void shouldReportNullLinesAndConcurrentDuplicates() throws Exception {
+        // cenario
+        String ndjson = "{\"title\":\"The Dark Knight\",\"author\":\"Frank Miller\",\"isbn\":\"123456\"}\n"
+                + "null\n"
+                + "{\"title\":\"Watchmen\",\"author\":\"Alan Moore\",\"isbn\":\"123458\"}\n";
+
+        // o lote inteiro falha porque outro request gravou o ISBN 123458 depois da verificacao
+        BDDMockito.given(bookService.importBooks(Mockito.anyList()))
+                .willAnswer(invocation -> {
+                    List<Book> books = invocation.getArgument(0);
+                    if (books.stream().anyMatch(book -> book.getIsbn().equals("123458"))) {
+                        throw new DataIntegrityViolationException("uk_book_isbn");
+                    }
+                    return books;
+                });
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(BOOK_API.concat("/import"))
+                .contentType("application/x-ndjson")
+                .accept("application/x-ndjson")
+                .content(ndjson);
+
+        // acao/verificacao
+        String[] lines = mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        Assertions.assertThat(lines).hasSize(3);
+        Assertions.assertThat(lines[0]).contains("\"line\":2", "\"status\":\"INVALID\"");
+        Assertions.assertThat(lines[1]).contains("\"line\":1", "\"status\":\"CREATED\"");
+        Assertions.assertThat(lines[2]).contains("\"line\":3", "\"status\":\"DUPLICATED\"");
+    }
+
+    @Test
+    @DisplayName("Should Return Books After Cursor With Next Cursor")
+    public void shouldReturnBooksAfterCursor() throws Exception {
+        // cenario
+        BookDTO book1 = BookDTO.builder().id(11L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+        BookDTO book2 = BookDTO.builder().id(12L).author("Frank Miller").title("The Dark Knight Rises").isbn("124").build();
+        String queryParams = String.format("?title=Dark&cursor=%s&size=2", Cursor.encode(10L));
+
+        BDDMockito.given(bookService.findAfter(BDDMockito.any(Book.class), BDDMockito.eq(10L), BDDMockito.eq(2)))
+                .willReturn(new SliceImpl<>(Arrays.asList(book1, book2), PageRequest.of(0, 2), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryParams))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("size").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("nextCursor").value(Cursor.encode(12L)))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should Return BadRequest When Cursor Is Combined With Count")
+    public void shouldReturnBadRequestWhenCursorIsCombinedWithCount() throws Exception {
+        for (String count : new String[] { "none", "estimated" }) {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .get(BOOK_API.concat("?cursor=" + Cursor.encode(10L) + "&count=" + count))
+                    .accept(MediaType.APPLICATION_JSON);
+
+            // acao/verificacao
+            mvc.perform(request)
+                    .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                    .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("cursor cannot be combined with count"));
+        }
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    @DisplayName("Should Return BadRequest For Invalid Cursor")
+    public void shouldReturnBadRequestForInvalidCursor() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("?cursor=@@@"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Invalid cursor"));
+        Mockito.verify(bookService, Mockito.never()).findAfter(Mockito.any(), Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Should Export Books As Ndjson")
+    public void shouldExportBooksAsNdjson() throws Exception {
+        // cenario
+        Book book1 = Book.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+        Book book2 = Book.builder().id(2L).author("Alan Moore").title("Watchmen").isbn("124").build();
+
+        BDDMockito.given(bookService.exportAll(Mockito.any()))
+                .willAnswer(invocation -> {
+                    Consumer<Book> consumer = invocation.getArgument(0);
+                    consumer.accept(book1);
+                    consumer.accept(book2);
+                    return 2L;
+                });
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("/export"))
+                .accept("application/x-ndjson");
+
+        // acao/verificacao
+        String[] lines = mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(lines[0]).contains("\"id\":1", "\"isbn\":\"123\"");
+        Assertions.assertThat(lines[1]).contains("\"id\":2", "\"title\":\"Watchmen\"");
+    }
+
+    @Test
+    @DisplayName("Should Return Not Modified When Book Version Matches If-None-Match")
+    public void shouldReturnNotModifiedBook() throws Exception {
+        // cenario
+        Book book = Book.builder().id(1L).author("Frank Miller").isbn("123456")
+                .title("The Dark Knight").version(3L).build();
+        BDDMockito.given(bookService.findById(1L)).willReturn(Optional.of(book));
+
+        // acao/verificacao
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"3\""));
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "/1").accept(MediaType.APPLICATION_JSON)
+                        .header("If-None-Match", "\"3\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should Return Not Modified For Unchanged Page Of Books")
+    public void shouldReturnNotModifiedPage() throws Exception {
+        // cenario
+        BookDTO book = BookDTO.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").version(0L).build();
+        BDDMockito.given(bookService.find(BDDMockito.any(Book.class), BDDMockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+        String eTag = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?title=Dark&page=0&size=10")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", Matchers.startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // acao/verificacao
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?title=Dark&page=0&size=10"))
+                        .header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        book.setVersion(1L);
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?title=Dark&page=0&size=10"))
+                        .header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Should Return Precondition Failed On Update With Stale If-Match")
+    public void shouldReturnPreconditionFailedOnStaleUpdate() throws Exception {
+        // cenario
+        Book book = Book.builder().id(1L).author("Frank Miller").isbn("123456")
+                .title("The Dark Knight").version(2L).build();
+        BookDTO dto = BookDTO.builder().author("Frank Miller").isbn("123456").title("The Dark K").build();
+        BDDMockito.given(bookService.findByIdOnPrimary(1L)).willReturn(Optional.of(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "\"1\"")
+                .content(new ObjectMapper().writeValueAsString(dto));
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        Mockito.verify(bookService, Mockito.never()).update(Mockito.any(Book.class));
+    }
 }
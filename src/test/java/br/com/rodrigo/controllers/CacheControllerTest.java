@@ -0,0 +1,73 @@
+package br.com.rodrigo.controllers;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.services.cache.BookIsbnCache;
+import br.com.rodrigo.services.cache.CountCache;
+import br.com.rodrigo.services.cache.SecondLevelCacheRegions;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Collections;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(CacheController.class)
+@Import({BookIsbnCache.class, CountCache.class})
+@AutoConfigureMockMvc
+public class CacheControllerTest {
+    private static String CACHE_API = "/api/cache";
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    BookIsbnCache bookIsbnCache;
+    @MockBean
+    SecondLevelCacheRegions secondLevelCacheRegions;
+
+    @Test
+    @DisplayName("Should Return Isbn Cache Counters")
+    public void shouldReturnIsbnCacheCounters() throws Exception {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        bookIsbnCache.get("1230", isbn -> Optional.of(book));
+        bookIsbnCache.get("1230", isbn -> Optional.of(book));
+        Cache<Object, Object> bookRegion = Caffeine.newBuilder().recordStats().build();
+        bookRegion.put(1L, book);
+        bookRegion.getIfPresent(1L);
+        BDDMockito.given(secondLevelCacheRegions.regions())
+                .willReturn(Collections.singletonMap("hibernate.book", bookRegion));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(CACHE_API)
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].name").value("books-by-isbn"))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].hits").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].misses").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].evictions").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].name").value("listing-counts"))
+                .andExpect(MockMvcResultMatchers.jsonPath("[2].name").value("hibernate.book"))
+                .andExpect(MockMvcResultMatchers.jsonPath("[2].size").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[2].hits").value(1));
+    }
+}
@@ -1,7 +1,11 @@
 package br.com.rodrigo.controllers;
 
+import br.com.rodrigo.DTOs.LoanReturnRequestDTO;
+import br.com.rodrigo.DTOs.LoanReturnResultDTO;
 import br.com.rodrigo.DTOs.LoanReturnedDTO;
 import br.com.rodrigo.exceptions.BusinessRuleException;
+import br.com.rodrigo.mappers.BookMapperImpl;
+import br.com.rodrigo.mappers.LoanMapperImpl;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.DTOs.LoanDTO;
 import br.com.rodrigo.model.entity.Loan;
@@ -18,10 +22,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -42,6 +48,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(LoanController.class)
+@Import({BookMapperImpl.class, LoanMapperImpl.class})
 @AutoConfigureMockMvc
 public class LoanControllerTest {
 
@@ -61,7 +68,7 @@ public class LoanControllerTest {
         LoanDTO dto = LoanDTO.builder().customer("Fulano").isbn("1234").build();
         String json = new  ObjectMapper().writeValueAsString(dto);
 
-        BDDMockito.given(bookService.findBookByIsbn(BDDMockito.anyString())).willReturn(Optional.empty());
+        BDDMockito.given(bookService.findBookByIsbnOnPrimary(BDDMockito.anyString())).willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(BOOK_API)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -83,7 +90,7 @@ public class LoanControllerTest {
         String json = new  ObjectMapper().writeValueAsString(dto);
 
         Book book = Book.builder().author("Frank Miller").isbn("1234").title("The Dark Knight").build();
-        BDDMockito.given(bookService.findBookByIsbn(dto.getIsbn())).willReturn(Optional.of(book));
+        BDDMockito.given(bookService.findBookByIsbnOnPrimary(dto.getIsbn())).willReturn(Optional.of(book));
 
         Loan loan = Loan.builder().id(1L).book(book).isReturned(false).loanDate(LocalDate.now()).customer("Fulano")
                 .build();
@@ -109,7 +116,7 @@ public class LoanControllerTest {
 
         Book book = Book.builder().id(1L).isbn(loanDTO.getIsbn()).build();
 
-        BDDMockito.given(bookService.findBookByIsbn("1230")).willReturn(Optional.of(book));
+        BDDMockito.given(bookService.findBookByIsbnOnPrimary("1230")).willReturn(Optional.of(book));
         BDDMockito.given(loanService.save(Mockito.any(Loan.class)))
                 .willThrow(new BusinessRuleException("Book already loaned"));
 
@@ -133,7 +140,7 @@ public class LoanControllerTest {
         String json = new ObjectMapper().writeValueAsString(dto);
         Loan loan = Loan.builder().id(1L).build();
 
-        BDDMockito.given(loanService.findById(1L)).willReturn(Optional.of(loan));
+        BDDMockito.given(loanService.findByIdOnPrimary(1L)).willReturn(Optional.of(loan));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
                 .contentType(MediaType.APPLICATION_JSON)
@@ -153,7 +160,7 @@ public class LoanControllerTest {
         LoanReturnedDTO dto = LoanReturnedDTO.builder().isReturned(true).build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        BDDMockito.given(loanService.findById(Mockito.anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(loanService.findByIdOnPrimary(Mockito.anyLong())).willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
                 .contentType(MediaType.APPLICATION_JSON)
@@ -172,10 +179,9 @@ public class LoanControllerTest {
         String isbn = "1230";
         String customer = "Fulano";
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=100", isbn, customer);
-        Book  book = Book.builder().id(1L).author("Frank M").isbn("1230").title("TDK").build();
-        Loan loan = Loan.builder().loanDate(LocalDate.now()).id(1L).book(book).customer("Fulano").build();
+        LoanDTO loan = new LoanDTO(1L, "Fulano", 1L, "TDK", "Frank M", "1230");
 
-        BDDMockito.given(loanService.find(Mockito.any(Loan.class),Mockito.any(Pageable.class)))
+        BDDMockito.given(loanService.findDetails(Mockito.any(Loan.class),Mockito.any(Pageable.class)))
                 .willReturn(new PageImpl<>(Arrays.asList(loan), PageRequest.of(0, 100), 1));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryString))
@@ -191,4 +197,99 @@ public class LoanControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("content[0].bookDTO.isbn")
                         .value("1230"));
     }
+
+    @Test
+    @DisplayName("Should Get Slice Of Loans Without Total")
+    public void shouldGetSliceOfLoansWithoutTotal() throws Exception {
+        String queryString = "?isbn=1230&customer=Fulano&page=0&size=1&count=none";
+        LoanDTO loan = new LoanDTO(1L, "Fulano", 1L, "TDK", "Frank M", "1230");
+
+        BDDMockito.given(loanService.findDetailsSlice(Mockito.any(Loan.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<>(Arrays.asList(loan), PageRequest.of(0, 1), false));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("last").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should Return Last Loans Page Without Next Cursor")
+    public void shouldReturnLastLoansPageWithoutNextCursor() throws Exception {
+        String queryString = "?isbn=1230&customer=Fulano&cursor=&size=10";
+        Book book = Book.builder().id(1L).author("Frank M").isbn("1230").title("TDK").build();
+        Loan loan = Loan.builder().loanDate(LocalDate.now()).id(1L).book(book).customer("Fulano").build();
+
+        BDDMockito.given(loanService.findAfter(Mockito.any(Loan.class), Mockito.eq(0L), Mockito.eq(10)))
+                .willReturn(new SliceImpl<>(Arrays.asList(loan), PageRequest.of(0, 10), false));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].bookDTO.isbn").value("1230"))
+                .andExpect(MockMvcResultMatchers.jsonPath("nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should Return BadRequest When Cursor Is Combined With Count")
+    public void shouldReturnBadRequestWhenCursorIsCombinedWithCount() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("?cursor=&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("cursor cannot be combined with count"));
+        Mockito.verifyNoInteractions(loanService);
+    }
+
+    @Test
+    @DisplayName("Should Return Loans In Batch")
+    public void shouldReturnLoansInBatch() throws Exception {
+        // cenario
+        LoanReturnRequestDTO dto = LoanReturnRequestDTO.builder().ids(Arrays.asList(1L, 2L))
+                .isbns(Arrays.asList("1230")).build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        BDDMockito.given(loanService.returnLoans(Arrays.asList(1L, 2L), Arrays.asList("1230")))
+                .willReturn(Arrays.asList(
+                        LoanReturnResultDTO.builder().id(1L).isbn("1111").status(LoanReturnResultDTO.Status.RETURNED).build(),
+                        LoanReturnResultDTO.builder().id(2L).status(LoanReturnResultDTO.Status.NOT_FOUND).build(),
+                        LoanReturnResultDTO.builder().id(3L).isbn("1230").status(LoanReturnResultDTO.Status.RETURNED).build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(BOOK_API.concat("/returns"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].status").value("NOT_FOUND"))
+                .andExpect(MockMvcResultMatchers.jsonPath("[2].id").value(3L));
+    }
+
+    @Test
+    @DisplayName("Should Return BadRequest For Empty Batch Return")
+    public void shouldReturnBadRequestForEmptyBatchReturn() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(BOOK_API.concat("/returns"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}");
+
+        // acao/verificacao
+        mvc.perform(request)
+                .andExpect(status().isBadRequest());
+        Mockito.verify(loanService, Mockito.never()).returnLoans(Mockito.anyCollection(), Mockito.anyCollection());
+    }
 }
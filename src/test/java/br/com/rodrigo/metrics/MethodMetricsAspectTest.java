@@ -0,0 +1,78 @@
+package br.com.rodrigo.metrics;
+
+import br.com.rodrigo.exceptions.BusinessRuleException;
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.services.BookService;
+import br.com.rodrigo.services.cache.BookIsbnCache;
+import br.com.rodrigo.services.cache.CountCache;
+import br.com.rodrigo.services.impl.BookServiceImpl;
+import br.com.rodrigo.services.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+
+public class MethodMetricsAspectTest {
+
+    SimpleMeterRegistry registry;
+    BookRepository bookRepository;
+    BookService bookService;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        bookRepository = Mockito.mock(BookRepository.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new BookServiceImpl(bookRepository, new BookIsbnCache(Duration.ofMinutes(10), 100),
+                new BookSearchIndex(bookRepository, false), new CountCache(Duration.ofSeconds(30), Duration.ofMinutes(10), 100), registry));
+        factory.addAspect(new MethodMetricsAspect(registry));
+        bookService = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Should Time Service Calls By Outcome")
+    public void shouldTimeServiceCallsByOutcome() {
+        // cenario
+        Book book = Book.builder().isbn("123456").title("The Dark Knight").author("Frank Miller").build();
+        Mockito.when(bookRepository.save(book)).thenReturn(book);
+        Mockito.when(bookRepository.existsByIsbn("123456")).thenReturn(false, true);
+
+        // acao
+        bookService.save(book);
+        Throwable error = Assertions.catchThrowable(() -> bookService.save(book));
+
+        // verificacao
+        Assertions.assertThat(error).isInstanceOf(BusinessRuleException.class);
+        Assertions.assertThat(registry.get(MethodMetricsAspect.METRIC).tag("layer", "service")
+                .tag("class", "BookServiceImpl").tag("method", "save").tag("outcome", "SUCCESS").timer().count())
+                .isEqualTo(1);
+        Assertions.assertThat(registry.get(MethodMetricsAspect.METRIC).tag("method", "save")
+                .tag("outcome", "BUSINESS_RULE").tag("exception", "BusinessRuleException").timer().count())
+                .isEqualTo(1);
+        Assertions.assertThat(registry.get(MethodMetricsAspect.REJECTIONS).tag("method", "save")
+                .tag("reason", "BusinessRuleException").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should Count Repeated Rejections On A Single Series")
+    public void shouldCountRepeatedRejectionsOnSingleSeries() {
+        // cenario
+        Book book = Book.builder().isbn("123456").title("The Dark Knight").author("Frank Miller").build();
+        Mockito.when(bookRepository.existsByIsbn("123456")).thenReturn(true);
+
+        // acao
+        for (int i = 0; i < 3; i++) {
+            Assertions.catchThrowable(() -> bookService.save(book));
+        }
+
+        // verificacao
+        Assertions.assertThat(registry.find(MethodMetricsAspect.REJECTIONS).counters()).hasSize(1);
+        Assertions.assertThat(registry.get(MethodMetricsAspect.REJECTIONS).tag("class", "BookServiceImpl")
+                .tag("method", "save").tag("reason", "BusinessRuleException").counter().count()).isEqualTo(3);
+    }
+}
@@ -1,7 +1,9 @@
 package br.com.rodrigo.model.repositories;
 
+import br.com.rodrigo.DTOs.BookDTO;
 import br.com.rodrigo.model.entity.Book;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,11 +11,19 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -132,4 +142,120 @@ public class BookRepositoryTest {
         Book after = entityManager.find(Book.class, id);
         Assertions.assertThat(after).isNull();
     }
+
+    @Test
+    @DisplayName("Should Insert All Books In Batch And Find Existing Isbns")
+    public void shouldInsertAllAndFindExistingIsbns() {
+        // cenario
+        Book book1 = Book.builder().author("Frank Miller").isbn("123456").title("The Dark Knight").build();
+        Book book2 = Book.builder().author("Alan Moore").isbn("123458").title("Watchmen").build();
+
+        // acao
+        bookRepository.insertAll(Arrays.asList(book1, book2));
+        Set<String> existing = bookRepository.findExistingIsbns(Arrays.asList("123456", "123458", "999999"));
+
+        // verificacao
+        Assertions.assertThat(existing).containsExactlyInAnyOrder("123456", "123458");
+        Assertions.assertThat(bookRepository.findByIsbn("123458")).map(Book::getId).contains(book2.getId());
+        Assertions.assertThat(book1.getId()).isNotNull().isNotEqualTo(book2.getId());
+    }
+
+    @Test
+    @DisplayName("Should Find Books After Given Id")
+    public void shouldFindBooksAfterGivenId() {
+        // cenario
+        Book book1 = Book.builder().author("Frank Miller").isbn("123456").title("The Dark Knight").build();
+        Book book2 = Book.builder().author("Frank Miller").isbn("123457").title("The Dark Knight Rises").build();
+        Book book3 = Book.builder().author("Alan Moore").isbn("123458").title("Watchmen").build();
+        Book book4 = Book.builder().author("Frank Miller").isbn("123459").title("The DARK Knight Strikes Again").build();
+        entityManager.persist(book1);
+        entityManager.persist(book2);
+        entityManager.persist(book3);
+        entityManager.persist(book4);
+
+        // acao
+        Slice<BookDTO> firstPage = bookRepository.findDetailsAfter(0L, "dark", null, null, PageRequest.of(0, 2));
+        Slice<BookDTO> lastPage = bookRepository.findDetailsAfter(firstPage.getContent().get(1).getId(), "dark", null,
+                null, PageRequest.of(0, 2));
+
+        // verificacao
+        Assertions.assertThat(firstPage.getContent()).extracting(BookDTO::getId).containsExactly(book1.getId(), book2.getId());
+        Assertions.assertThat(firstPage.hasNext()).isTrue();
+        Assertions.assertThat(lastPage.getContent()).extracting(BookDTO::getId).containsExactly(book4.getId());
+        Assertions.assertThat(lastPage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should Match Wildcard Characters Literally In Every Search Mode")
+    public void shouldMatchWildcardsLiterally() {
+        // cenario
+        Book discount = entityManager.persist(Book.builder().author("A_uthor").isbn("1").title("50% Off").build());
+        entityManager.persist(Book.builder().author("Author").isbn("2").title("500 Days").build());
+        entityManager.flush();
+        entityManager.clear();
+        Book filter = Book.builder().title("50%").author("a_u").build();
+
+        // acao
+        Page<BookDTO> page = bookRepository.searchDetails(filter, PageRequest.of(0, 10));
+        Slice<BookDTO> slice = bookRepository.searchDetailsSlice("50%", "a_u", null, PageRequest.of(0, 10));
+        Slice<BookDTO> afterCursor = bookRepository.findDetailsAfter(0L, "50%", "a_u", null, PageRequest.of(0, 10));
+        long count = bookRepository.countSearch("50%", "a_u", null);
+
+        // verificacao
+        Assertions.assertThat(page.getContent()).extracting(BookDTO::getId).containsExactly(discount.getId());
+        Assertions.assertThat(slice.getContent()).extracting(BookDTO::getId).containsExactly(discount.getId());
+        Assertions.assertThat(afterCursor.getContent()).extracting(BookDTO::getId).containsExactly(discount.getId());
+        Assertions.assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should Search Books Into DTOs Without Loading Entities")
+    public void shouldSearchBooksIntoDtosWithoutLoadingEntities() {
+        // cenario
+        Book book1 = entityManager.persist(Book.builder().author("Frank Miller").isbn("123456").title("The DARK Knight").build());
+        Book book2 = entityManager.persist(Book.builder().author("Alan Moore").isbn("123457").title("Watchmen").build());
+        Book book3 = entityManager.persist(Book.builder().author("Frank Miller").isbn("123458").title("The Dark Knight Rises").build());
+        entityManager.flush();
+        entityManager.clear();
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+
+        // acao
+        Page<BookDTO> byTitle = bookRepository.searchDetails(Book.builder().title("dark").author("MILLER").build(),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "title")));
+        Page<BookDTO> byId = bookRepository.searchDetails(Book.builder().id(book2.getId()).build(), PageRequest.of(0, 10));
+
+        // verificacao
+        Assertions.assertThat(byTitle.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(byTitle.getContent()).extracting(BookDTO::getId).containsExactly(book3.getId());
+        Assertions.assertThat(byTitle.getContent().get(0).getVersion()).isEqualTo(book3.getVersion());
+        Assertions.assertThat(byId.getContent()).extracting(BookDTO::getTitle).containsExactly("Watchmen");
+        Assertions.assertThat(bookRepository.findDetailsByIdIn(Arrays.asList(book1.getId(), book3.getId())))
+                .extracting(BookDTO::getIsbn).containsExactlyInAnyOrder("123456", "123458");
+        Assertions.assertThat(session.getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should Stream Books In Id Order And Detach Them")
+    public void shouldStreamBooksInIdOrderAndDetachThem() {
+        // cenario
+        Book book1 = Book.builder().author("Frank Miller").isbn("123456").title("The Dark Knight").build();
+        Book book2 = Book.builder().author("Alan Moore").isbn("123458").title("Watchmen").build();
+        entityManager.persist(book1);
+        entityManager.persist(book2);
+        entityManager.flush();
+        entityManager.clear();
+
+        // acao
+        List<Book> exported = new ArrayList<>();
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                exported.add(book);
+                bookRepository.detach(book);
+            });
+        }
+
+        // verificacao
+        Assertions.assertThat(exported).extracting(Book::getIsbn).containsExactly("123456", "123458");
+        Assertions.assertThat(exported).noneMatch(book -> entityManager.getEntityManager().contains(book));
+    }
 }
@@ -1,8 +1,11 @@
 package br.com.rodrigo.model.repositories;
 
+import br.com.rodrigo.DTOs.LoanDTO;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.model.entity.Loan;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,10 +15,20 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -25,6 +38,10 @@ public class LoanRepositoryTest {
     private TestEntityManager entityManager;
     @Autowired
     private LoanRepository loanRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     @Test
     @DisplayName("Should Return True If Exists Loan Not Returned With Book")
@@ -61,4 +78,181 @@ public class LoanRepositoryTest {
         Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(100);
         Assertions.assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
     }
+
+    @Test
+    @DisplayName("Should Find By Book Or Customer After Given Id")
+    public void shouldFindByBookOrCustomerAfterGivenId() {
+        // cenario
+        Book book = Book.builder().isbn("1230").title("The Dark knigh").author("Frank Miller").build();
+        Book otherBook = Book.builder().isbn("1231").title("Watchmen").author("Alan Moore").build();
+        Loan loan1 = Loan.builder().loanDate(LocalDate.now()).book(book).customer("Fulano").build();
+        Loan loan2 = Loan.builder().loanDate(LocalDate.now()).book(otherBook).customer("Fulano").isReturned(true).build();
+        Loan loan3 = Loan.builder().loanDate(LocalDate.now()).book(otherBook).customer("Ciclano").build();
+        entityManager.persist(book);
+        entityManager.persist(otherBook);
+        entityManager.persist(loan1);
+        entityManager.persist(loan2);
+        entityManager.persist(loan3);
+
+        // acao
+        Slice<Loan> result = loanRepository.findByBookOrCustomerAfter(loan1.getId(), "1230", "Fulano",
+                PageRequest.of(0, 10));
+
+        // verificacao
+        Assertions.assertThat(result.getContent()).containsExactly(loan2);
+        Assertions.assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should Return Ids Of Books With Loans Not Returned")
+    public void shouldReturnIdsOfBooksWithLoansNotReturned() {
+        // cenario
+        Book loanedBook = Book.builder().isbn("1230").title("The Dark knigh").author("Frank Miller").build();
+        Book returnedBook = Book.builder().isbn("1231").title("Watchmen").author("Alan Moore").build();
+        entityManager.persist(loanedBook);
+        entityManager.persist(returnedBook);
+        entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(loanedBook).customer("Fulano").build());
+        entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(returnedBook).customer("Fulano")
+                .isReturned(true).build());
+
+        // acao
+        List<Long> bookIds = loanRepository.findLoanedBookIds();
+
+        // verificacao
+        Assertions.assertThat(bookIds).containsExactly(loanedBook.getId());
+    }
+
+    @Test
+    @DisplayName("Should Reject Second Active Loan For The Same Book")
+    public void shouldRejectSecondActiveLoanForSameBook() {
+        // cenario
+        Book book = Book.builder().isbn("1230").title("The Dark knigh").author("Frank Miller").build();
+        entityManager.persist(book);
+        entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(book).customer("Fulano")
+                .isReturned(true).build());
+        entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(book).customer("Fulano").build());
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> {
+            entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(book).customer("Ciclano").build());
+            entityManager.flush();
+        });
+
+        // verificacao
+        Assertions.assertThat(error).isInstanceOf(PersistenceException.class);
+    }
+
+    @Test
+    @DisplayName("Should Load A Slice Of Loan Details Without Count Query")
+    public void shouldLoadLoanDetailsSliceWithoutCount() {
+        // cenario
+        for (int i = 0; i < 5; i++) {
+            Book book = Book.builder().isbn("123" + i).title("Book " + i).author("Author " + i).build();
+            entityManager.persist(book);
+            entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(book).customer("Fulano").build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // acao
+        Slice<LoanDTO> result = loanRepository.findDetailsSliceByBookOrCustomer("none", "Fulano", PageRequest.of(0, 3));
+
+        // verificacao
+        Assertions.assertThat(result.getContent()).hasSize(3);
+        Assertions.assertThat(result.hasNext()).isTrue();
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        Assertions.assertThat(loanRepository.countByBookOrCustomer("none", "Fulano")).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should Load A Page Of Loan Details With Books In One Select")
+    public void shouldLoadLoanDetailsWithBooksInOneSelect() {
+        // cenario
+        for (int i = 0; i < 5; i++) {
+            Book book = Book.builder().isbn("123" + i).title("Book " + i).author("Author " + i).build();
+            entityManager.persist(book);
+            entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(book).customer("Fulano").build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // acao
+        Page<LoanDTO> result = loanRepository.findDetailsByBookOrCustomer("none", "Fulano", PageRequest.of(0, 3));
+
+        // verificacao: um select para a pagina e um count, nenhum select extra por livro
+        Assertions.assertThat(result.getContent()).hasSize(3);
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(result.getContent().get(0).getBookDTO().getTitle()).isEqualTo("Book 0");
+        Assertions.assertThat(result.getContent().get(0).getIsbn()).isEqualTo("1230");
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        Assertions.assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should Mark Loans Returned And Free Their Books")
+    public void shouldMarkLoansReturnedAndFreeTheirBooks() {
+        // cenario
+        Book book = Book.builder().isbn("1230").title("The Dark Knight").author("Frank Miller").build();
+        entityManager.persist(book);
+        Loan loan = entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(book).customer("Fulano").build());
+        entityManager.flush();
+
+        // acao
+        int updated = loanRepository.markReturned(Arrays.asList(loan.getId()));
+        int updatedAgain = loanRepository.markReturned(Arrays.asList(loan.getId()));
+
+        // verificacao
+        Assertions.assertThat(updated).isEqualTo(1);
+        Assertions.assertThat(updatedAgain).isZero();
+        Loan reloaded = entityManager.find(Loan.class, loan.getId());
+        Assertions.assertThat(reloaded.isReturned()).isTrue();
+        Assertions.assertThat(reloaded.getActiveBookId()).isNull();
+        Assertions.assertThat(loanRepository.findActiveByIsbnIn(Arrays.asList("1230"))).isEmpty();
+        entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(reloaded.getBook()).customer("Ciclano").build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should Resolve Books Of A Loan Page From The Second Level Cache")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void shouldResolveLoanBooksFromSecondLevelCache() {
+        // cenario: livros inseridos na transacao corrente nao vao para o cache, entao o cenario e commitado
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Loan> loans = transaction.execute(status -> {
+            List<Loan> persisted = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Book book = entityManager.persist(Book.builder().isbn("456" + i).title("Book " + i).author("Author " + i).build());
+                persisted.add(entityManager.persist(Loan.builder().loanDate(LocalDate.now()).book(book).customer("Beltrano").build()));
+            }
+            return persisted;
+        });
+        try {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            loanRepository.findByBookOrCustomer("none", "Beltrano", PageRequest.of(0, 10));
+            statistics.clear();
+
+            // acao
+            Page<Loan> result = loanRepository.findByBookOrCustomer("none", "Beltrano", PageRequest.of(0, 10));
+
+            // verificacao: so o select da pagina, os livros vem do cache
+            Assertions.assertThat(result.getContent()).extracting(loan -> loan.getBook().getTitle())
+                    .containsExactlyInAnyOrder("Book 0", "Book 1", "Book 2");
+            Assertions.assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(3);
+            Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        } finally {
+            transaction.execute(status -> {
+                loans.forEach(loan -> {
+                    entityManager.remove(entityManager.find(Loan.class, loan.getId()));
+                    entityManager.remove(entityManager.find(Book.class, loan.getBook().getId()));
+                });
+                return null;
+            });
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package br.com.rodrigo.model.repositories;
+
+import br.com.rodrigo.model.entity.Book;
+import org.assertj.core.api.Assertions;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Explains the SQL Hibernate actually sends for the hottest lookups against the migrated schema.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "br.com.rodrigo.model.repositories.QueryPlanTest$SqlRecorder")
+public class QueryPlanTest {
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("Should Find Book By ISBN Through The Unique ISBN Index")
+    public void shouldFindBookByIsbnThroughIndex() {
+        // acao
+        bookRepository.findByIsbn("123456");
+
+        // verificacao
+        Assertions.assertThat(plan(lastStatement(), "123456")).containsIgnoringCase("UK_BOOK_ISBN: ISBN = ?1");
+    }
+
+    @Test
+    @DisplayName("Should Check Active Loan Of Book Through The Book And Returned Index")
+    public void shouldCheckActiveLoanThroughIndex() {
+        // cenario
+        Book book = bookRepository.saveAndFlush(Book.builder().isbn("123456").title("Title").author("Author").build());
+
+        // acao
+        loanRepository.existsByBookLoanNotReturned(book);
+
+        // verificacao
+        Assertions.assertThat(plan(lastStatement(), book.getId()))
+                .containsPattern("IDX_LOAN_BOOK_RETURNED: ID_BOOK = \\?1\\s+AND IS_RETURNED = ");
+    }
+
+    @Test
+    @DisplayName("Should Find Active Loans By ISBN Through The Book And Returned Index")
+    public void shouldFindActiveLoansByIsbnThroughIndex() {
+        // acao
+        loanRepository.findActiveByIsbnIn(Arrays.asList("123456"));
+
+        // verificacao
+        Assertions.assertThat(plan(lastStatement(), "123456"))
+                .containsPattern("IDX_LOAN_BOOK_RETURNED: ID_BOOK = \\S+\\s+AND IS_RETURNED = ");
+    }
+
+    @Test
+    @DisplayName("Should Find Loans Of A Customer Through The Customer Index")
+    public void shouldFindLoansOfCustomerThroughIndex() {
+        // verificacao
+        Assertions.assertThat(plan("select id from loan where customer = ?", "Fulano"))
+                .containsIgnoringCase("IDX_LOAN_CUSTOMER: CUSTOMER = ?1");
+    }
+
+    private String lastStatement() {
+        Assertions.assertThat(SqlRecorder.STATEMENTS).isNotEmpty();
+
+        return SqlRecorder.STATEMENTS.get(SqlRecorder.STATEMENTS.size() - 1);
+    }
+
+    private String plan(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.rodrigo.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FileOutboxSinkTest {
+
+    @Test
+    @DisplayName("Should Append Each Event As A JSON Line")
+    public void shouldAppendEachEventAsJsonLine(@TempDir Path directory) throws Exception {
+        // cenario
+        Path file = directory.resolve("outbox.jsonl");
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        FileOutboxSink sink = new FileOutboxSink(file, objectMapper);
+        OutboxEvent created = OutboxEvent.builder().id(1L).aggregateType(OutboxEvent.BOOK).aggregateId(10L)
+                .type(OutboxEvent.BOOK_CREATED).payload("{}").createdAt(Instant.EPOCH).build();
+        OutboxEvent updated = created.toBuilder().id(2L).type(OutboxEvent.BOOK_UPDATED).build();
+
+        // acao
+        sink.publish(Collections.singletonList(created));
+        sink.publish(Collections.singletonList(updated));
+
+        // verificacao
+        List<String> lines = Files.readAllLines(file);
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(Arrays.asList(objectMapper.readValue(lines.get(0), OutboxEvent.class),
+                objectMapper.readValue(lines.get(1), OutboxEvent.class))).containsExactly(created, updated);
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.rodrigo.outbox;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import br.com.rodrigo.services.BookService;
+import br.com.rodrigo.services.LoanService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import(OutboxRelayTest.RecordingSinkConfig.class)
+public class OutboxRelayTest {
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private OutboxRelay relay;
+    @Autowired
+    private RecordingSink sink;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        sink.events.clear();
+        sink.failures = 0;
+    }
+
+    @Test
+    @DisplayName("Should Relay Book And Loan Changes In The Order They Happened")
+    public void shouldRelayChangesInOrder() {
+        // cenario
+        Book book = bookService.save(Book.builder().isbn("out-1").title("Outbox").author("Author").build());
+        Loan loan = loanService.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        loan.setReturned(true);
+        loanService.update(loan);
+        book.setTitle("Outbox, 2nd edition");
+        bookService.update(book);
+
+        // acao
+        int published = relay.relay();
+
+        // verificacao
+        Assertions.assertThat(published).isEqualTo(4);
+        Assertions.assertThat(sink.events)
+                .extracting(OutboxEvent::getType, OutboxEvent::getAggregateId)
+                .containsExactly(
+                        Assertions.tuple(OutboxEvent.BOOK_CREATED, book.getId()),
+                        Assertions.tuple(OutboxEvent.LOAN_CREATED, loan.getId()),
+                        Assertions.tuple(OutboxEvent.LOAN_RETURNED, loan.getId()),
+                        Assertions.tuple(OutboxEvent.BOOK_UPDATED, book.getId()));
+        Assertions.assertThat(sink.events.get(3).getPayload()).contains("\"title\":\"Outbox, 2nd edition\"");
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should Record Events Of Imports And Bulk Returns")
+    public void shouldRecordEventsOfBulkChanges() {
+        // cenario
+        List<Book> books = bookService.importBooks(new ArrayList<>(Arrays.asList(
+                Book.builder().isbn("out-2").title("Imported").author("Author").build(),
+                Book.builder().isbn("out-3").title("Imported").author("Author").build())));
+        Loan loan = loanService.save(Loan.builder().book(books.get(0)).customer("Fulano")
+                .loanDate(LocalDate.now()).build());
+        loanService.returnLoans(Collections.singletonList(loan.getId()), Collections.emptyList());
+
+        // acao
+        relay.relay();
+
+        // verificacao
+        Assertions.assertThat(sink.events)
+                .extracting(OutboxEvent::getType, OutboxEvent::getAggregateId)
+                .containsExactly(
+                        Assertions.tuple(OutboxEvent.BOOK_CREATED, books.get(0).getId()),
+                        Assertions.tuple(OutboxEvent.BOOK_CREATED, books.get(1).getId()),
+                        Assertions.tuple(OutboxEvent.LOAN_CREATED, loan.getId()),
+                        Assertions.tuple(OutboxEvent.LOAN_RETURNED, loan.getId()));
+        Assertions.assertThat(sink.events.get(3).getPayload()).contains("\"returned\":true");
+    }
+
+    @Test
+    @DisplayName("Should Keep Events The Sink Failed To Take And Offer Them Again")
+    public void shouldRedeliverAfterSinkFailure() {
+        // cenario
+        Book book = bookService.save(Book.builder().isbn("out-4").title("Retry").author("Author").build());
+        sink.failures = 1;
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> relay.relay());
+        int published = relay.relay();
+
+        // verificacao
+        Assertions.assertThat(error).isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(published).isEqualTo(1);
+        Assertions.assertThat(sink.events).extracting(OutboxEvent::getAggregateId).containsExactly(book.getId());
+    }
+
+    @Test
+    @DisplayName("Should Not Record Events Of A Rolled Back Change")
+    public void shouldNotRecordEventsOfRolledBackChange() {
+        // cenario
+        Book book = bookService.save(Book.builder().isbn("out-5").title("Taken").author("Author").build());
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        Book stale = Book.builder().id(book.getId()).isbn("out-5").title("Stale").author("Author").version(-1L).build();
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> bookService.update(stale));
+
+        // verificacao
+        Assertions.assertThat(error).isNotNull();
+        Assertions.assertThat(relay.relay()).isZero();
+    }
+
+    @TestConfiguration
+    static class RecordingSinkConfig {
+        @Bean
+        @Primary
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    static class RecordingSink implements OutboxSink {
+        final List<OutboxEvent> events = Collections.synchronizedList(new ArrayList<>());
+        volatile int failures;
+
+        @Override
+        public void publish(List<OutboxEvent> batch) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("sink unavailable");
+            }
+            events.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package br.com.rodrigo.reactive;
+
+import br.com.rodrigo.DTOs.BookDTO;
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.DTOs.LoanReturnedDTO;
+import br.com.rodrigo.reactive.model.LoanRecord;
+import br.com.rodrigo.reactive.services.ReactiveLoanService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({"test", "reactive"})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveRoutesTest {
+
+    @Autowired
+    WebTestClient client;
+    @Autowired
+    ReactiveLoanService loanService;
+    @LocalServerPort
+    int port;
+
+    @Test
+    @DisplayName("Should Reject Duplicated Isbn On Reactive Stack")
+    public void shouldRejectDuplicatedIsbn() {
+        // cenario
+        BookDTO book = BookDTO.builder().title("The Dark Knight").author("Frank Miller").isbn("r-123").build();
+        client.post().uri("/api/books").bodyValue(book).exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("id").isNotEmpty();
+
+        // acao/verificacao
+        client.post().uri("/api/books").bodyValue(book).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("errors[0]").isEqualTo("ISBN already exists.");
+    }
+
+    @Test
+    @DisplayName("Should Return Validation Errors On Reactive Stack")
+    public void shouldReturnValidationErrors() {
+        client.post().uri("/api/books").bodyValue(new BookDTO()).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("errors.length()").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should Reject Loan Of Already Loaned Book On Reactive Stack")
+    public void shouldRejectLoanOfAlreadyLoanedBook() {
+        // cenario
+        BookDTO book = BookDTO.builder().title("Watchmen").author("Alan Moore").isbn("r-456").build();
+        client.post().uri("/api/books").bodyValue(book).exchange().expectStatus().isCreated();
+        LoanDTO loan = LoanDTO.builder().isbn("r-456").customer("Fulano").build();
+        client.post().uri("/api/loans").bodyValue(loan).exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("isbn").isEqualTo("r-456");
+
+        // acao/verificacao
+        client.post().uri("/api/loans").bodyValue(loan).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("errors[0]").isEqualTo("Book already loaned");
+        client.get().uri("/api/loans?customer=Fulano&page=0&size=10").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content[0].bookDTO.title").isEqualTo("Watchmen")
+                .jsonPath("totalElements").isEqualTo(1);
+        client.get().uri("/api/books?title=watch").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("content[0].isbn").isEqualTo("r-456");
+    }
+
+    @Test
+    @DisplayName("Should Match Wildcards In Filters Literally On Reactive Stack")
+    public void shouldMatchWildcardsLiterally() {
+        // cenario
+        client.post().uri("/api/books").bodyValue(BookDTO.builder().title("50% Off").author("A_uthor").isbn("r-789").build())
+                .exchange().expectStatus().isCreated();
+        client.post().uri("/api/books").bodyValue(BookDTO.builder().title("500 Days").author("Aauthor").isbn("r-790").build())
+                .exchange().expectStatus().isCreated();
+
+        // acao/verificacao
+        client.get().uri(uri -> uri.path("/api/books").queryParam("title", "{title}").queryParam("author", "{author}")
+                        .build("50%", "a_u"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("content[0].isbn").isEqualTo("r-789")
+                .jsonPath("totalElements").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should Register A Single Book When Requests Race For The Same Isbn On Reactive Stack")
+    public void shouldRegisterSingleBookUnderContention() {
+        // cenario
+        WebClient webClient = WebClient.create("http://localhost:" + port);
+        BookDTO book = BookDTO.builder().title("Sandman").author("Neil Gaiman").isbn("r-race").build();
+
+        // acao
+        List<Integer> statuses = Flux.range(0, 8)
+                .flatMap(i -> webClient.post().uri("/api/books").bodyValue(book)
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode())))
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        // verificacao
+        Assertions.assertThat(statuses).containsOnly(201, 400);
+        Assertions.assertThat(statuses).filteredOn(status -> status == 201).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should Not Report Other Integrity Violations As Loaned Book On Reactive Stack")
+    public void shouldNotReportOtherViolationsAsLoanedBook() {
+        // cenario: o livro nao existe, entao o insert viola a chave estrangeira
+        LoanRecord loan = LoanRecord.builder().bookId(999999L).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> loanService.save(loan).block(Duration.ofSeconds(10)));
+
+        // verificacao
+        Assertions.assertThat(error).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Should Answer Loan Return With The Servlet Payload On Reactive Stack")
+    public void shouldAnswerLoanReturnWithServletPayload() {
+        // cenario
+        client.post().uri("/api/books").bodyValue(BookDTO.builder().title("Maus").author("Art Spiegelman").isbn("r-patch").build())
+                .exchange().expectStatus().isCreated();
+        LoanDTO loan = client.post().uri("/api/loans").bodyValue(LoanDTO.builder().isbn("r-patch").customer("Fulano").build())
+                .exchange().expectStatus().isCreated()
+                .expectBody(LoanDTO.class).returnResult().getResponseBody();
+
+        // acao/verificacao
+        client.patch().uri("/api/loans/" + loan.getId()).bodyValue(LoanReturnedDTO.builder().isReturned(true).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("id").isEqualTo(loan.getId().intValue())
+                .jsonPath("customer").isEqualTo("Fulano")
+                .jsonPath("returned").isEqualTo(true)
+                .jsonPath("activeBookId").doesNotExist()
+                .jsonPath("book.isbn").isEqualTo("r-patch")
+                .jsonPath("book.title").isEqualTo("Maus")
+                .jsonPath("bookId").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should Return BadRequest For Malformed Ids And Pages On Reactive Stack")
+    public void shouldReturnBadRequestForMalformedInput() {
+        client.get().uri("/api/books/abc").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/books?page=abc").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/books?size=0").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/loans?customer=Fulano&size=x").exchange().expectStatus().isBadRequest();
+        client.patch().uri("/api/loans/abc").bodyValue(LoanReturnedDTO.builder().isReturned(true).build())
+                .exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Should Return NotFound For Unknown Book On Reactive Stack")
+    public void shouldReturnNotFoundForUnknownBook() {
+        client.get().uri("/api/books/999999").exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_FOUND);
+        client.post().uri("/api/loans").bodyValue(LoanDTO.builder().isbn("missing").customer("Fulano").build())
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("errors[0]").isEqualTo("Book not found");
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.rodrigo.services;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.services.search.BookSearchIndex;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    public void setup() {
+        bookSearchIndex = new BookSearchIndex(null, true);
+        bookSearchIndex.index(Book.builder().id(1L).title("The Dark Knight").author("Frank Miller").isbn("123456").build());
+        bookSearchIndex.index(Book.builder().id(2L).title("Watchmen").author("Alan Moore").isbn("123457").build());
+        bookSearchIndex.index(Book.builder().id(3L).title("Dark Knight Returns").author("Frank Miller").isbn("223458").build());
+    }
+
+    @Test
+    @DisplayName("Should Match Substrings Ignoring Case")
+    public void shouldMatchSubstringsIgnoringCase() {
+        Assertions.assertThat(bookSearchIndex.search("ARK KNI", null, null)).containsExactly(1L, 3L);
+        Assertions.assertThat(bookSearchIndex.search(null, "moor", null)).containsExactly(2L);
+        Assertions.assertThat(bookSearchIndex.search("knight", "alan", null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should Reject Candidates Sharing Only The Trigrams")
+    public void shouldRejectCandidatesSharingOnlyTrigrams() {
+        // cenario: "bcabc" tem os trigramas "bca", "cab" e "abc", todos presentes em "abcab"
+        bookSearchIndex.index(Book.builder().id(4L).title("abcab").author("Fulano").isbn("1").build());
+
+        // acao/verificacao
+        Assertions.assertThat(bookSearchIndex.search("bcabc", null, null)).isEmpty();
+        Assertions.assertThat(bookSearchIndex.search("bcab", null, null)).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Should Search Short Terms And Isbn By Scanning Indexed Books")
+    public void shouldSearchShortTermsAndIsbn() {
+        Assertions.assertThat(bookSearchIndex.search("th", null, null)).containsExactly(1L);
+        Assertions.assertThat(bookSearchIndex.search(null, null, "2234")).containsExactly(3L);
+        Assertions.assertThat(bookSearchIndex.search(null, null, null)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Should Page Books In Id Order")
+    public void shouldPageBooksInIdOrder() {
+        // cenario: indexados fora de ordem
+        bookSearchIndex.index(Book.builder().id(5L).title("Sandman").author("Neil Gaiman").isbn("323459").build());
+        bookSearchIndex.index(Book.builder().id(4L).title("Dark Phoenix").author("Chris Claremont").isbn("323458").build());
+        bookSearchIndex.remove(2L);
+
+        // acao
+        Page<Long> unfiltered = bookSearchIndex.search(null, null, null, PageRequest.of(1, 2));
+        Page<Long> filtered = bookSearchIndex.search("dark", null, null, PageRequest.of(0, 2));
+
+        // verificacao
+        Assertions.assertThat(unfiltered.getContent()).containsExactly(4L, 5L);
+        Assertions.assertThat(unfiltered.getTotalElements()).isEqualTo(4);
+        Assertions.assertThat(filtered.getContent()).containsExactly(1L, 3L);
+        Assertions.assertThat(filtered.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should Drop Postings Of Removed Books")
+    public void shouldDropPostingsOfRemovedBooks() {
+        bookSearchIndex.remove(1L);
+
+        Assertions.assertThat(bookSearchIndex.search("dark", null, null)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Should Replace Postings Of Reindexed Books")
+    public void shouldReplacePostingsOfReindexedBooks() {
+        // acao
+        bookSearchIndex.index(Book.builder().id(2L).title("Watchmen Absolute").author("Alan Moore").isbn("123457").build());
+
+        // verificacao
+        Assertions.assertThat(bookSearchIndex.search("absolute", null, null)).containsExactly(2L);
+        Assertions.assertThat(bookSearchIndex.search("watchmen", null, null)).containsExactly(2L);
+        bookSearchIndex.index(Book.builder().id(2L).title("V for Vendetta").author("Alan Moore").isbn("123457").build());
+        Assertions.assertThat(bookSearchIndex.search("watchmen", null, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should Keep Reindexed Books Visible To Concurrent Searches")
+    public void shouldKeepReindexedBooksVisibleToConcurrentSearches() throws Exception {
+        // cenario: as duas versoes do titulo compartilham "dark knight"
+        Book first = Book.builder().id(1L).title("The Dark Knight").author("Frank Miller").isbn("123456").build();
+        Book second = Book.builder().id(1L).title("Dark Knight Strikes").author("Frank Miller").isbn("123456").build();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                bookSearchIndex.index(i % 2 == 0 ? second : first);
+                // outro livro entra e sai das mesmas postings, disputando a remocao de conjuntos vazios
+                bookSearchIndex.index(Book.builder().id(9L).title("Strikes").author("Nobody").isbn("9").build());
+                bookSearchIndex.remove(9L);
+            }
+            running.set(false);
+        });
+
+        // acao
+        writer.start();
+        int misses = 0;
+        while (running.get()) {
+            if(!bookSearchIndex.search("dark knight", null, null).contains(1L)) {
+                misses++;
+            }
+        }
+        writer.join();
+
+        // verificacao
+        Assertions.assertThat(misses).isZero();
+        Assertions.assertThat(bookSearchIndex.search("strikes", null, null)).isEmpty();
+    }
+}
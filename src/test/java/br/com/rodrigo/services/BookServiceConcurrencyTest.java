@@ -0,0 +1,175 @@
+package br.com.rodrigo.services;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.services.cache.BookIsbnCache;
+import br.com.rodrigo.services.cache.CountCache;
+import br.com.rodrigo.services.impl.BookServiceImpl;
+import br.com.rodrigo.services.search.BookSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BookServiceConcurrencyTest {
+    private static final int THREADS = 32;
+    private static final long LOAD_LATENCY_MILLIS = 200;
+
+    BookService bookService;
+    BookRepository bookRepository;
+    Map<Object, AtomicInteger> loads;
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        loads = new ConcurrentHashMap<>();
+        registry = new SimpleMeterRegistry();
+        bookRepository = Mockito.mock(BookRepository.class);
+
+        // simula o banco: uma consulta lenta que conta quantas vezes cada chave foi buscada
+        Mockito.when(bookRepository.findById(Mockito.anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            loads.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+            Thread.sleep(LOAD_LATENCY_MILLIS);
+            return Optional.of(Book.builder().id(id).isbn("isbn-" + id).title("Title").build());
+        });
+        Mockito.when(bookRepository.findByIsbn(Mockito.anyString())).thenAnswer(invocation -> {
+            String isbn = invocation.getArgument(0);
+            loads.computeIfAbsent(isbn, key -> new AtomicInteger()).incrementAndGet();
+            Thread.sleep(LOAD_LATENCY_MILLIS);
+            return isbn.startsWith("unknown") ? Optional.empty() : Optional.of(Book.builder().id(1L).isbn(isbn).build());
+        });
+
+        bookService = new BookServiceImpl(bookRepository, new BookIsbnCache(Duration.ofMinutes(10), 100),
+                new BookSearchIndex(bookRepository, false), new CountCache(Duration.ofSeconds(30), Duration.ofMinutes(10), 100),
+                registry);
+    }
+
+    @Test
+    @DisplayName("Should Load A Hot Book Once Per Burst Of Concurrent Reads")
+    public void shouldCoalesceConcurrentFindById() throws Exception {
+        // cenario
+        Set<Book> results = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+
+        // acao: metade das threads busca o livro 1 e a outra metade o livro 2
+        runConcurrently(THREADS, i -> results.add(bookService.findById((long) (i % 2 + 1)).get()));
+
+        // verificacao
+        Assertions.assertThat(loads).containsOnlyKeys(1L, 2L);
+        Assertions.assertThat(loads.values()).extracting(AtomicInteger::get).containsOnly(1);
+        // cada chamada recebe a sua propria instancia, pois quem chama pode alterar o livro
+        Assertions.assertThat(results).hasSize(THREADS);
+        Assertions.assertThat(results).extracting(Book::getId).containsOnly(1L, 2L);
+        // todas as chamadas menos a primeira de cada livro esperaram a busca de outra
+        Assertions.assertThat(registry.get(BookServiceImpl.COALESCED_METRIC).tag("lookup", "id").functionCounter()
+                .count()).isEqualTo(THREADS - 2);
+        Assertions.assertThat(registry.get(BookServiceImpl.COALESCED_METRIC).tag("lookup", "isbn").functionCounter()
+                .count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should Load Again On The Next Burst")
+    public void shouldNotKeepResultAfterBurst() throws Exception {
+        // acao
+        runConcurrently(THREADS, i -> bookService.findById(1L));
+        runConcurrently(THREADS, i -> bookService.findById(1L));
+
+        // verificacao
+        Assertions.assertThat(loads.get(1L)).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should Share One Lookup Among Concurrent Reads Of The Same ISBN")
+    public void shouldCoalesceConcurrentFindBookByIsbn() throws Exception {
+        // cenario
+        AtomicInteger found = new AtomicInteger();
+        AtomicInteger notFound = new AtomicInteger();
+
+        // acao: um ISBN existente e um desconhecido, que o cache por ISBN nao guarda
+        runConcurrently(THREADS, i -> {
+            Optional<Book> book = bookService.findBookByIsbn(i % 2 == 0 ? "123" : "unknown");
+            (book.isPresent() ? found : notFound).incrementAndGet();
+        });
+
+        // verificacao
+        Assertions.assertThat(loads.get("123")).hasValue(1);
+        Assertions.assertThat(loads.get("unknown")).hasValue(1);
+        Assertions.assertThat(found.get()).isEqualTo(THREADS / 2);
+        Assertions.assertThat(notFound.get()).isEqualTo(THREADS / 2);
+    }
+
+    @Test
+    @DisplayName("Should Hand The Failure To Every Waiting Read And Retry Afterwards")
+    public void shouldPropagateFailureToWaitingReads() throws Exception {
+        // cenario
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(bookRepository.findById(3L)).thenAnswer(invocation -> {
+            Thread.sleep(LOAD_LATENCY_MILLIS);
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return Optional.of(Book.builder().id(3L).build());
+        });
+        AtomicInteger failures = new AtomicInteger();
+
+        // acao
+        runConcurrently(THREADS, i -> {
+            try {
+                bookService.findById(3L);
+            } catch (IllegalStateException ex) {
+                failures.incrementAndGet();
+            }
+        });
+        Optional<Book> retried = bookService.findById(3L);
+
+        // verificacao
+        Assertions.assertThat(failures.get()).isEqualTo(THREADS);
+        Assertions.assertThat(retried).isPresent();
+        Assertions.assertThat(calls.get()).isEqualTo(2);
+    }
+
+    private void runConcurrently(int threads, IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface IntConsumer {
+        void accept(int value) throws Exception;
+    }
+}
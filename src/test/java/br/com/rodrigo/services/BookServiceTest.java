@@ -1,9 +1,14 @@
 package br.com.rodrigo.services;
 
+import br.com.rodrigo.DTOs.BookDTO;
 import br.com.rodrigo.exceptions.BusinessRuleException;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.services.cache.BookIsbnCache;
+import br.com.rodrigo.services.cache.CountCache;
 import br.com.rodrigo.services.impl.BookServiceImpl;
+import br.com.rodrigo.services.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,10 +19,13 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.internal.matchers.InstanceOf;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Example;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
@@ -27,21 +35,32 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 public class BookServiceTest {
 
     BookService bookService;
+    BookIsbnCache bookIsbnCache;
+    BookSearchIndex bookSearchIndex;
+    CountCache countCache;
     @MockBean
     BookRepository bookRepository;
 
     @BeforeEach
     public void setup() {
-        bookService = new BookServiceImpl(bookRepository);
+        bookIsbnCache = new BookIsbnCache(Duration.ofMinutes(10), 100);
+        bookSearchIndex = new BookSearchIndex(bookRepository, true);
+        countCache = new CountCache(Duration.ofSeconds(30), Duration.ofMinutes(10), 100);
+        bookService = new BookServiceImpl(bookRepository, bookIsbnCache, bookSearchIndex, countCache,
+                new SimpleMeterRegistry());
     }
 
     @Test
@@ -79,6 +98,23 @@ public class BookServiceTest {
         Mockito.verify(bookRepository, Mockito.never()).save(book);
     }
 
+    @Test
+    @DisplayName("Should Not Save Book When Unique ISBN Index Rejects It")
+    public void shouldNotSaveBookWhenUniqueIsbnIndexRejectsIt() {
+        // cenario
+        Book book = Book.builder().isbn("123456").title("The Dark Knight").author("Frank Miller").build();
+        Mockito.when(bookRepository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        Mockito.when(bookRepository.save(book)).thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
+
+        // acao
+        Throwable exception = Assertions.catchThrowable(() -> bookService.save(book));
+
+        // verificacao
+        Assertions.assertThat(exception)
+                .isInstanceOf(BusinessRuleException.class)
+                .hasMessage("ISBN already exists.");
+    }
+
     @Test
     @DisplayName("Should return a empty list of books")
     public void shouldReturnEmptyListOfBooks() {
@@ -92,6 +128,45 @@ public class BookServiceTest {
         Assertions.assertThat(books).isEmpty();
     }
 
+    @Test
+    @DisplayName("Should Return Slice Of Books Without Counting")
+    public void shouldReturnSliceOfBooksWithoutCounting() {
+        // cenario
+        BookDTO book = BookDTO.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+        PageRequest params = PageRequest.of(0, 1);
+        Mockito.when(bookRepository.searchDetailsSlice("Dark", null, null, params))
+                .thenReturn(new SliceImpl<>(Arrays.asList(book), params, true));
+
+        // acao
+        Slice<BookDTO> books = bookService.findSlice(Book.builder().title("Dark").build(), params);
+
+        // verificacao
+        Assertions.assertThat(books.getContent()).containsExactly(book);
+        Assertions.assertThat(books.hasNext()).isTrue();
+        Mockito.verify(bookRepository, Mockito.never()).countSearch(null, null, null);
+        Mockito.verify(bookRepository, Mockito.never()).countSearch("Dark", null, null);
+    }
+
+    @Test
+    @DisplayName("Should Reuse Cached Count For Estimated Pages")
+    public void shouldReuseCachedCountForEstimatedPages() {
+        // cenario
+        BookDTO book = BookDTO.builder().id(1L).author("Frank Miller").title("The Dark Knight").isbn("123").build();
+        Mockito.when(bookRepository.searchDetailsSlice(Mockito.eq("Dark"), Mockito.isNull(), Mockito.isNull(),
+                Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(book), PageRequest.of(0, 1), true));
+        Mockito.when(bookRepository.countSearch("Dark", null, null)).thenReturn(42L);
+
+        // acao
+        Page<BookDTO> first = bookService.findWithEstimatedCount(Book.builder().title("Dark").build(), PageRequest.of(0, 1));
+        Page<BookDTO> second = bookService.findWithEstimatedCount(Book.builder().title("Dark").build(), PageRequest.of(1, 1));
+
+        // verificacao
+        Assertions.assertThat(first.getTotalElements()).isEqualTo(42L);
+        Assertions.assertThat(second.getTotalElements()).isEqualTo(42L);
+        Mockito.verify(bookRepository, Mockito.times(1)).countSearch("Dark", null, null);
+    }
+
     @Test
     @DisplayName("Should return a list of books")
     public void shouldReturnListOfBooks() {
@@ -230,18 +305,19 @@ public class BookServiceTest {
     public void shouldReturnPageableListOfBooks() {
         // cenario
         Book book = Book.builder().title("The Dark Knight").author("Frank Miller").build();
+        BookDTO found = BookDTO.builder().id(1L).title("The Dark Knight").author("Frank Miller").build();
         PageRequest pageRequest = PageRequest.of(0, 10);
-        Page<Book> page = new PageImpl(Arrays.asList(book), pageRequest, 1);
+        Page<BookDTO> page = new PageImpl<>(Arrays.asList(found), pageRequest, 1);
 
-        Mockito.when(bookRepository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+        Mockito.when(bookRepository.searchDetails(book, pageRequest))
                 .thenReturn(page);
 
         // acao
-        Page<Book> books = bookService.find(book, pageRequest);
+        Page<BookDTO> books = bookService.find(book, pageRequest);
 
         // verificacao
         Assertions.assertThat(books.getTotalElements()).isEqualTo(1);
-        Assertions.assertThat(books.getContent()).isEqualTo(Arrays.asList(book));
+        Assertions.assertThat(books.getContent()).containsExactly(found);
         Assertions.assertThat(books.getPageable().getPageNumber()).isEqualTo(0);
         Assertions.assertThat(books.getPageable().getPageSize()).isEqualTo(10);
     }
@@ -263,4 +339,194 @@ public class BookServiceTest {
 
         Mockito.verify(bookRepository, Mockito.times(1)).findByIsbn("1230");
     }
+
+    @Test
+    @DisplayName("Should Hand Out Copies Of The Cached Book")
+    public void shouldHandOutCopiesOfCachedBook() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").title("The Dark Knight").build();
+        Mockito.when(bookRepository.findByIsbn("1230")).thenReturn(Optional.of(book));
+
+        // acao
+        Book first = bookService.findBookByIsbn("1230").get();
+        first.setTitle("Changed by a caller");
+        Book second = bookService.findBookByIsbn("1230").get();
+
+        // verificacao
+        Assertions.assertThat(second).isNotSameAs(first);
+        Assertions.assertThat(second.getTitle()).isEqualTo("The Dark Knight");
+        Mockito.verify(bookRepository, Mockito.times(1)).findByIsbn("1230");
+    }
+
+    @Test
+    @DisplayName("Should Return Cached Book On Repeated Isbn Lookups")
+    public void shouldReturnCachedBookOnRepeatedIsbnLookups() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Mockito.when(bookRepository.findByIsbn("1230")).thenReturn(Optional.of(book));
+
+        // acao
+        bookService.findBookByIsbn("1230");
+        Optional<Book> foundedBook = bookService.findBookByIsbn("1230");
+
+        // verificacao
+        Assertions.assertThat(foundedBook).contains(book);
+        Assertions.assertThat(bookIsbnCache.stats().hitCount()).isEqualTo(1);
+        Assertions.assertThat(bookIsbnCache.stats().missCount()).isEqualTo(1);
+        Mockito.verify(bookRepository, Mockito.times(1)).findByIsbn("1230");
+    }
+
+    @Test
+    @DisplayName("Should Not Cache Unknown Isbn")
+    public void shouldNotCacheUnknownIsbn() {
+        // cenario
+        Mockito.when(bookRepository.findByIsbn("1230")).thenReturn(Optional.empty());
+
+        // acao
+        bookService.findBookByIsbn("1230");
+        Optional<Book> foundedBook = bookService.findBookByIsbn("1230");
+
+        // verificacao
+        Assertions.assertThat(foundedBook).isNotPresent();
+        Mockito.verify(bookRepository, Mockito.times(2)).findByIsbn("1230");
+    }
+
+    @Test
+    @DisplayName("Should Return BadRequest For Null Isbn Without Looking It Up")
+    public void shouldReturnBadRequestForNullIsbn() {
+        // acao
+        Throwable response = Assertions.catchThrowable(() -> bookService.findBookByIsbn(null));
+        Throwable onPrimary = Assertions.catchThrowable(() -> bookService.findBookByIsbnOnPrimary(null));
+
+        // verificacao
+        Assertions.assertThat(response)
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessage("400 BAD_REQUEST \"isbn is required\"");
+        Assertions.assertThat(onPrimary).isInstanceOf(ResponseStatusException.class);
+        Mockito.verify(bookRepository, Mockito.never()).findByIsbn(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should Invalidate Cached Isbn On Update And Delete")
+    public void shouldInvalidateCachedIsbnOnUpdateAndDelete() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").title("The Dark K").build();
+        Mockito.when(bookRepository.findByIsbn("1230")).thenReturn(Optional.of(book));
+        Mockito.when(bookRepository.save(book)).thenReturn(book);
+
+        // acao
+        bookService.findBookByIsbn("1230");
+        bookService.update(book);
+        bookService.findBookByIsbn("1230");
+        bookService.delete(book);
+        bookService.findBookByIsbn("1230");
+
+        // verificacao
+        Assertions.assertThat(bookIsbnCache.stats().hitCount()).isZero();
+        Mockito.verify(bookRepository, Mockito.times(3)).findByIsbn("1230");
+    }
+
+    @Test
+    @DisplayName("Should Import Only Books With New Isbn")
+    public void shouldImportOnlyBooksWithNewIsbn() {
+        // cenario
+        Book existing = Book.builder().isbn("123456").title("The Dark Knight").author("Frank Miller").build();
+        Book newBook = Book.builder().isbn("123458").title("The Dark Knight Rises").author("Frank Miller").build();
+        Book repeated = Book.builder().isbn("123458").title("The Dark Knight Rises").author("Frank Miller").build();
+        Mockito.when(bookRepository.findExistingIsbns(Mockito.anyCollection()))
+                .thenReturn(new HashSet<>(Arrays.asList("123456")));
+
+        // acao
+        List<Book> created = bookService.importBooks(Arrays.asList(existing, newBook, repeated));
+
+        // verificacao
+        Assertions.assertThat(created).hasSize(1);
+        Assertions.assertThat(created.get(0)).isSameAs(newBook);
+        Mockito.verify(bookRepository, Mockito.times(1)).insertAll(Arrays.asList(newBook));
+    }
+
+    @Test
+    @DisplayName("Should Return Slice Of Books After Cursor")
+    public void shouldReturnSliceOfBooksAfterCursor() {
+        // cenario
+        Book filter = Book.builder().title("Dark").build();
+        BookDTO book = BookDTO.builder().id(11L).title("The Dark Knight").author("Frank Miller").build();
+        Mockito.when(bookRepository.findDetailsAfter(10L, "Dark", null, null, PageRequest.of(0, 5)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(book), PageRequest.of(0, 5), false));
+
+        // acao
+        Slice<BookDTO> books = bookService.findAfter(filter, 10L, 5);
+
+        // verificacao
+        Assertions.assertThat(books.getContent()).containsExactly(book);
+        Assertions.assertThat(books.hasNext()).isFalse();
+        Mockito.verify(bookRepository, Mockito.never()).count();
+    }
+
+    @Test
+    @DisplayName("Should Answer Search From Index And Hydrate Only The Page")
+    public void shouldAnswerSearchFromIndex() {
+        // cenario
+        Book book1 = Book.builder().id(1L).title("The Dark Knight").author("Frank Miller").isbn("1").build();
+        Book book2 = Book.builder().id(2L).title("Watchmen").author("Alan Moore").isbn("2").build();
+        Book book3 = Book.builder().id(3L).title("The Dark Knight Rises").author("Frank Miller").isbn("3").build();
+        Book book4 = Book.builder().id(4L).title("Batman: Year One").author("Frank Miller").isbn("4").build();
+        Mockito.when(bookRepository.findAll(Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(book1, book2, book3, book4)));
+        BookDTO found = BookDTO.builder().id(3L).title("The Dark Knight Rises").author("Frank Miller").isbn("3").build();
+        Mockito.when(bookRepository.findDetailsByIdIn(Arrays.asList(3L))).thenReturn(Arrays.asList(found));
+        bookSearchIndex.build();
+
+        // acao
+        Page<BookDTO> books = bookService.find(Book.builder().title("dark KN").author("miller").build(),
+                PageRequest.of(1, 1));
+
+        // verificacao
+        Assertions.assertThat(books.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(books.getContent()).containsExactly(found);
+        Mockito.verify(bookRepository, Mockito.never()).searchDetails(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should Keep Index Current On Save Update And Delete")
+    public void shouldKeepIndexCurrentOnSaveUpdateAndDelete() {
+        // cenario
+        Mockito.when(bookRepository.findAll(Mockito.any(PageRequest.class))).thenReturn(Page.empty());
+        bookSearchIndex.build();
+        Book book = Book.builder().isbn("123456").title("The Dark Knight").author("Frank Miller").build();
+        Book savedBook = Book.builder().id(1L).isbn("123456").title("The Dark Knight").author("Frank Miller").build();
+        Book updatedBook = Book.builder().id(1L).isbn("123456").title("Watchmen").author("Alan Moore").build();
+        Mockito.when(bookRepository.save(book)).thenReturn(savedBook);
+        Mockito.when(bookRepository.save(updatedBook)).thenReturn(updatedBook);
+
+        // acao/verificacao
+        bookService.save(book);
+        Assertions.assertThat(bookSearchIndex.search("dark", null, null)).containsExactly(1L);
+
+        bookService.update(updatedBook);
+        Assertions.assertThat(bookSearchIndex.search("dark", null, null)).isEmpty();
+        Assertions.assertThat(bookSearchIndex.search("watch", "moore", null)).containsExactly(1L);
+
+        bookService.delete(updatedBook);
+        Assertions.assertThat(bookSearchIndex.search("watch", null, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should Export Every Book And Detach It")
+    public void shouldExportEveryBookAndDetachIt() {
+        // cenario
+        Book book1 = Book.builder().id(1L).isbn("123456").title("The Dark Knight").author("Frank Miller").build();
+        Book book2 = Book.builder().id(2L).isbn("123458").title("Watchmen").author("Alan Moore").build();
+        Mockito.when(bookRepository.streamAll()).thenReturn(Stream.of(book1, book2));
+        List<Book> exported = new ArrayList<>();
+
+        // acao
+        long count = bookService.exportAll(exported::add);
+
+        // verificacao
+        Assertions.assertThat(count).isEqualTo(2);
+        Assertions.assertThat(exported).containsExactly(book1, book2);
+        Mockito.verify(bookRepository).detach(book1);
+        Mockito.verify(bookRepository).detach(book2);
+    }
 }
@@ -0,0 +1,185 @@
+package br.com.rodrigo.services;
+
+import br.com.rodrigo.DTOs.LoanReturnResultDTO;
+import br.com.rodrigo.exceptions.BusinessRuleException;
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import br.com.rodrigo.model.repositories.BookRepository;
+import br.com.rodrigo.model.repositories.LoanRepository;
+import br.com.rodrigo.outbox.Outbox;
+import br.com.rodrigo.services.cache.ActiveLoanIndex;
+import br.com.rodrigo.services.cache.CountCache;
+import br.com.rodrigo.services.impl.LoanServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// cada save confirma a sua propria transacao, para que as threads concorram de fato no banco
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanServiceConcurrencyTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    LoanRepository loanRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    AtomicInteger appendedEvents;
+
+    // duas instancias da aplicacao: locks e indices separados, o mesmo banco
+    LoanService[] instances;
+
+    @BeforeEach
+    public void setup() {
+        appendedEvents = new AtomicInteger();
+        instances = new LoanService[] { newInstance(), newInstance() };
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should Create A Single Loan When Many Customers Race For The Same Book")
+    public void shouldCreateSingleLoanUnderContention() throws Exception {
+        // cenario
+        Book book = saveBook("1230");
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // acao
+        runConcurrently(THREADS, i -> {
+            try {
+                instances[i % instances.length].save(newLoan(book, "Cliente " + i));
+                created.incrementAndGet();
+            } catch (BusinessRuleException ex) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        // verificacao
+        Assertions.assertThat(created.get()).isEqualTo(1);
+        Assertions.assertThat(rejected.get()).isEqualTo(THREADS - 1);
+        Assertions.assertThat(loanRepository.count()).isEqualTo(1);
+        Assertions.assertThat(loanRepository.findLoanedBookIds()).containsExactly(book.getId());
+    }
+
+    @Test
+    @DisplayName("Should Create Every Loan Of Different Books")
+    public void shouldCreateEveryLoanOfDifferentBooks() throws Exception {
+        // cenario
+        int loansPerThread = 5;
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < THREADS * loansPerThread; i++) {
+            books.add(saveBook(String.valueOf(1000 + i)));
+        }
+
+        // acao
+        runConcurrently(THREADS, i -> {
+            for (int j = 0; j < loansPerThread; j++) {
+                instances[(i + j) % instances.length].save(newLoan(books.get(i * loansPerThread + j), "Cliente " + i));
+            }
+        });
+
+        // verificacao
+        Assertions.assertThat(loanRepository.count()).isEqualTo(books.size());
+        Assertions.assertThat(loanRepository.findLoanedBookIds())
+                .containsExactlyInAnyOrderElementsOf(books.stream().map(Book::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Should Return A Loan Once When Carts Race To Return It")
+    public void shouldReturnLoanOnceUnderContention() throws Exception {
+        // cenario
+        Book book = saveBook("1230");
+        Loan loan = instances[0].save(newLoan(book, "Fulano"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<LoanReturnResultDTO> results = new CopyOnWriteArrayList<>();
+
+        // acao: metade devolve pelo id, metade pelo isbn, como o @Transactional do bean faria
+        runConcurrently(THREADS, i -> results.addAll(transaction.execute(status -> i % 2 == 0
+                ? instances[i % instances.length].returnLoans(Collections.singletonList(loan.getId()), Collections.emptyList())
+                : instances[i % instances.length].returnLoans(Collections.emptyList(), Collections.singletonList("1230")))));
+
+        // verificacao
+        Assertions.assertThat(results).filteredOn(result -> result.getStatus() == LoanReturnResultDTO.Status.RETURNED)
+                .hasSize(1);
+        Assertions.assertThat(appendedEvents.get()).isEqualTo(1);
+        Assertions.assertThat(loanRepository.findLoanedBookIds()).isEmpty();
+    }
+
+    private LoanService newInstance() {
+        Outbox outbox = Mockito.mock(Outbox.class);
+        Mockito.doAnswer(invocation -> appendedEvents.addAndGet(invocation.<List<?>>getArgument(0).size()))
+                .when(outbox).append(Mockito.anyList());
+
+        return new LoanServiceImpl(loanRepository, new ActiveLoanIndex(loanRepository, false),
+                new CountCache(Duration.ofSeconds(30), Duration.ofMinutes(10), 100), outbox, 64, 500);
+    }
+
+    private Book saveBook(String isbn) {
+        return bookRepository.save(Book.builder().title("Livro " + isbn).author("Fulano").isbn(isbn).build());
+    }
+
+    private Loan newLoan(Book book, String customer) {
+        return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+    }
+
+    private void runConcurrently(int threads, IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface IntConsumer {
+        void accept(int value) throws Exception;
+    }
+}
@@ -1,11 +1,17 @@
 package br.com.rodrigo.services;
 
+import br.com.rodrigo.DTOs.LoanDTO;
+import br.com.rodrigo.DTOs.LoanReturnResultDTO;
 import br.com.rodrigo.exceptions.BusinessRuleException;
 import br.com.rodrigo.model.entity.Book;
 import br.com.rodrigo.model.entity.Loan;
 import br.com.rodrigo.model.repositories.LoanRepository;
+import br.com.rodrigo.outbox.Outbox;
+import br.com.rodrigo.services.cache.ActiveLoanIndex;
+import br.com.rodrigo.services.cache.CountCache;
 import br.com.rodrigo.services.impl.LoanServiceImpl;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,12 +19,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @ExtendWith(SpringExtension.class)
@@ -26,12 +37,15 @@ import java.util.Optional;
 public class LoanServiceTest {
 
     LoanService loanService;
+    ActiveLoanIndex activeLoanIndex;
     @MockBean
     LoanRepository loanRepository;
 
     @BeforeEach
     public void setup() {
-        loanService = new LoanServiceImpl(loanRepository);
+        activeLoanIndex = new ActiveLoanIndex(loanRepository, true);
+        loanService = new LoanServiceImpl(loanRepository, activeLoanIndex,
+                new CountCache(Duration.ofSeconds(30), Duration.ofMinutes(10), 100), Mockito.mock(Outbox.class), 16, 2);
     }
 
     @Test
@@ -129,4 +143,223 @@ public class LoanServiceTest {
         Assertions.assertThat(loans.getPageable().getPageNumber()).isEqualTo(0);
         Assertions.assertThat(loans.getPageable().getPageSize()).isEqualTo(100);
     }
+
+    @Test
+    @DisplayName("Should Return Loan Details With Estimated Count")
+    public void shouldReturnLoanDetailsWithEstimatedCount() {
+        // cenario
+        Loan loan = Loan.builder().customer("Fulano").book(Book.builder().isbn("1230").build()).build();
+        LoanDTO details = new LoanDTO(1L, "Fulano", 1L, "TDK", "Frank M", "1230");
+        PageRequest params = PageRequest.of(0, 1);
+
+        Mockito.when(loanRepository.findDetailsSliceByBookOrCustomer("1230", "Fulano", params))
+                .thenReturn(new SliceImpl<>(Arrays.asList(details), params, true));
+        Mockito.when(loanRepository.countByBookOrCustomer("1230", "Fulano")).thenReturn(7L);
+
+        // acao
+        Page<LoanDTO> first = loanService.findDetailsWithEstimatedCount(loan, params);
+        Page<LoanDTO> second = loanService.findDetailsWithEstimatedCount(loan, params);
+
+        // verificacao
+        Assertions.assertThat(first.getContent()).containsExactly(details);
+        Assertions.assertThat(second.getTotalElements()).isEqualTo(7L);
+        Mockito.verify(loanRepository, Mockito.times(1)).countByBookOrCustomer("1230", "Fulano");
+    }
+
+    @Test
+    @DisplayName("Should Return Slice Of Loans After Cursor")
+    public void shouldReturnSliceOfLoansAfterCursor() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Loan loan = Loan.builder().id(11L).customer("Fulano").book(book).loanDate(LocalDate.now()).build();
+
+        Mockito.when(loanRepository.findByBookOrCustomerAfter(10L, "1230", "Fulano", PageRequest.of(0, 5)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(loan), PageRequest.of(0, 5), true));
+
+        // acao
+        Slice<Loan> loans = loanService.findAfter(loan, 10L, 5);
+
+        // verificacao
+        Assertions.assertThat(loans.getContent()).containsExactly(loan);
+        Assertions.assertThat(loans.hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should Check Availability In Active Loan Index And Confirm Hits In Database")
+    public void shouldCheckAvailabilityInActiveLoanIndex() {
+        // cenario
+        Book loanedBook = Book.builder().id(1L).isbn("1230").build();
+        Book availableBook = Book.builder().id(2L).isbn("1231").build();
+        Loan loanedBookLoan = Loan.builder().book(loanedBook).loanDate(LocalDate.now()).customer("Fulano").build();
+        Loan availableBookLoan = Loan.builder().book(availableBook).loanDate(LocalDate.now()).customer("Fulano").build();
+
+        Mockito.when(loanRepository.findLoanedBookIds()).thenReturn(Arrays.asList(1L));
+        Mockito.when(loanRepository.existsByBookLoanNotReturned(loanedBook)).thenReturn(true);
+        Mockito.when(loanRepository.save(availableBookLoan)).thenReturn(availableBookLoan);
+        activeLoanIndex.build();
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> loanService.save(loanedBookLoan));
+        loanService.save(availableBookLoan);
+
+        // verificacao
+        Assertions.assertThat(error).isInstanceOf(BusinessRuleException.class).hasMessage("Book already loaned");
+        Assertions.assertThat(activeLoanIndex.isLoaned(2L)).isTrue();
+        Mockito.verify(loanRepository, Mockito.never()).existsByBookLoanNotReturned(availableBook);
+        Mockito.verify(loanRepository, Mockito.never()).save(loanedBookLoan);
+    }
+
+    @Test
+    @DisplayName("Should Loan Book When Active Loan Index Entry Is Stale")
+    public void shouldLoanBookWhenIndexEntryIsStale() {
+        // cenario: o emprestimo foi devolvido em outra instancia depois do build do indice
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Loan loan = Loan.builder().book(book).loanDate(LocalDate.now()).customer("Fulano").build();
+
+        Mockito.when(loanRepository.findLoanedBookIds()).thenReturn(Arrays.asList(1L));
+        Mockito.when(loanRepository.existsByBookLoanNotReturned(book)).thenReturn(false);
+        Mockito.when(loanRepository.save(loan)).thenReturn(loan);
+        activeLoanIndex.build();
+
+        // acao
+        Loan savedLoan = loanService.save(loan);
+
+        // verificacao
+        Assertions.assertThat(savedLoan).isEqualTo(loan);
+        Assertions.assertThat(activeLoanIndex.isLoaned(1L)).isTrue();
+        Mockito.verify(loanRepository).save(loan);
+    }
+
+    @Test
+    @DisplayName("Should Make Book Available In Index When Loan Is Returned")
+    public void shouldMakeBookAvailableWhenLoanIsReturned() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Loan loan = Loan.builder().id(1L).book(book).isReturned(true).build();
+
+        Mockito.when(loanRepository.findLoanedBookIds()).thenReturn(Arrays.asList(1L));
+        Mockito.when(loanRepository.save(loan)).thenReturn(loan);
+        activeLoanIndex.build();
+
+        // acao
+        loanService.update(loan);
+
+        // verificacao
+        Assertions.assertThat(activeLoanIndex.isLoaned(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should Release Book In Index When Saving Loan Fails")
+    public void shouldReleaseBookWhenSavingLoanFails() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Loan loan = Loan.builder().book(book).loanDate(LocalDate.now()).customer("Fulano").build();
+
+        Mockito.when(loanRepository.findLoanedBookIds()).thenReturn(Arrays.asList());
+        Mockito.when(loanRepository.save(loan)).thenThrow(new IllegalStateException("database down"));
+        activeLoanIndex.build();
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> loanService.save(loan));
+
+        // verificacao
+        Assertions.assertThat(error).isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(activeLoanIndex.isLoaned(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should Return Book Already Loaned When Database Rejects Second Active Loan")
+    public void shouldReturnAlreadyLoanedWhenDatabaseRejectsSecondActiveLoan() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Loan loan = Loan.builder().book(book).loanDate(LocalDate.now()).customer("Fulano").build();
+
+        Mockito.when(loanRepository.findLoanedBookIds()).thenReturn(Arrays.asList());
+        Mockito.when(loanRepository.save(loan)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate", new SQLException(), "PUBLIC.UK_LOAN_ACTIVE_BOOK_ID_INDEX_2")));
+        activeLoanIndex.build();
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> loanService.save(loan));
+
+        // verificacao
+        Assertions.assertThat(error).isInstanceOf(BusinessRuleException.class).hasMessage("Book already loaned");
+        Assertions.assertThat(activeLoanIndex.isLoaned(1L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should Rethrow Other Integrity Violations When Saving Loan")
+    public void shouldRethrowOtherIntegrityViolations() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Loan loan = Loan.builder().book(book).loanDate(LocalDate.now()).customer("Fulano").build();
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("missing book", new SQLException(), "PUBLIC.FK_LOAN_BOOK"));
+
+        Mockito.when(loanRepository.findLoanedBookIds()).thenReturn(Arrays.asList());
+        Mockito.when(loanRepository.save(loan)).thenThrow(violation);
+        activeLoanIndex.build();
+
+        // acao
+        Throwable error = Assertions.catchThrowable(() -> loanService.save(loan));
+
+        // verificacao
+        Assertions.assertThat(error).isSameAs(violation);
+        Assertions.assertThat(activeLoanIndex.isLoaned(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should Return Filtered List Of Loan Details")
+    public void shouldReturnFilteredListOfLoanDetails() {
+        // cenario
+        Book book = Book.builder().id(1L).isbn("1230").build();
+        Loan loan = Loan.builder().customer("Fulano").book(book).build();
+        LoanDTO details = new LoanDTO(1L, "Fulano", 1L, "TDK", "Frank M", "1230");
+        PageRequest params = PageRequest.of(0, 100);
+
+        Mockito.when(loanRepository.findDetailsByBookOrCustomer("1230", "Fulano", params))
+                .thenReturn(new PageImpl<>(Arrays.asList(details), params, 1));
+
+        // acao
+        Page<LoanDTO> loans = loanService.findDetails(loan, params);
+
+        // verificacao
+        Assertions.assertThat(loans.getContent()).containsExactly(details);
+        Assertions.assertThat(loans.getTotalElements()).isEqualTo(1);
+        Mockito.verify(loanRepository, Mockito.never()).findByBookOrCustomer(Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should Return Loans By Id And Isbn In Batches")
+    public void shouldReturnLoansByIdAndIsbnInBatches() {
+        // cenario
+        Book book1 = Book.builder().id(1L).isbn("1230").build();
+        Book book2 = Book.builder().id(2L).isbn("1231").build();
+        Book book3 = Book.builder().id(3L).isbn("1232").build();
+        Loan active = Loan.builder().id(10L).book(book1).customer("Fulano").build();
+        Loan returned = Loan.builder().id(11L).book(book2).customer("Fulano").isReturned(true).build();
+        Loan activeByIsbn = Loan.builder().id(12L).book(book3).customer("Ciclano").build();
+        activeLoanIndex.markLoaned(1L);
+        activeLoanIndex.markLoaned(3L);
+
+        Mockito.when(loanRepository.findWithBookByIdIn(Arrays.asList(10L, 11L))).thenReturn(Arrays.asList(active, returned));
+        Mockito.when(loanRepository.findWithBookByIdIn(Arrays.asList(99L))).thenReturn(Collections.emptyList());
+        Mockito.when(loanRepository.findActiveByIsbnIn(Arrays.asList("1232", "0000")))
+                .thenReturn(Arrays.asList(activeByIsbn));
+
+        // acao
+        List<LoanReturnResultDTO> results = loanService.returnLoans(Arrays.asList(10L, 11L, 99L),
+                Arrays.asList("1232", "0000"));
+
+        // verificacao
+        Assertions.assertThat(results).extracting(LoanReturnResultDTO::getStatus).containsExactly(
+                LoanReturnResultDTO.Status.RETURNED, LoanReturnResultDTO.Status.ALREADY_RETURNED,
+                LoanReturnResultDTO.Status.NOT_FOUND, LoanReturnResultDTO.Status.RETURNED,
+                LoanReturnResultDTO.Status.NOT_FOUND);
+        Assertions.assertThat(results.get(3).getId()).isEqualTo(12L);
+        Mockito.verify(loanRepository).markReturned(Arrays.asList(10L, 12L));
+        Assertions.assertThat(activeLoanIndex.isLoaned(1L)).isFalse();
+        Assertions.assertThat(activeLoanIndex.isLoaned(3L)).isFalse();
+    }
 }
@@ -0,0 +1,97 @@
+package br.com.rodrigo.services;
+
+import br.com.rodrigo.model.entity.Book;
+import br.com.rodrigo.model.entity.Loan;
+import br.com.rodrigo.model.entity.OverdueNotice;
+import br.com.rodrigo.model.repositories.OverdueNoticeRepository;
+import br.com.rodrigo.services.overdue.OverdueLoanScanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({OverdueLoanScanner.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {"library.loans.period-days=14", "library.loans.overdue.chunk-size=2"})
+public class OverdueLoanScannerTest {
+    private static final LocalDate TODAY = LocalDate.of(2021, 5, 31);
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private OverdueLoanScanner scanner;
+    @Autowired
+    private OverdueNoticeRepository noticeRepository;
+    @Autowired
+    private MeterRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        registry.clear();
+    }
+
+    @Test
+    @DisplayName("Should Record A Notice For Each Overdue Loan")
+    public void shouldRecordNoticeForEachOverdueLoan() {
+        // cenario
+        Loan first = createLoan("001", TODAY.minusDays(30), false);
+        Loan second = createLoan("002", TODAY.minusDays(20), false);
+        Loan third = createLoan("003", TODAY.minusDays(20), false);
+        createLoan("004", TODAY.minusDays(30), true);
+        createLoan("005", TODAY.minusDays(14), false);
+
+        // acao
+        long scanned = scanner.scan(TODAY);
+
+        // verificacao
+        Assertions.assertThat(scanned).isEqualTo(3);
+        Assertions.assertThat(noticeRepository.findAll())
+                .extracting(OverdueNotice::getLoanId, OverdueNotice::getIsbn, OverdueNotice::getDueDate)
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple(first.getId(), "001", TODAY.minusDays(16)),
+                        Assertions.tuple(second.getId(), "002", TODAY.minusDays(6)),
+                        Assertions.tuple(third.getId(), "003", TODAY.minusDays(6)));
+        Assertions.assertThat(registry.get(OverdueLoanScanner.SCANNED_METRIC).counter().count()).isEqualTo(3);
+        Assertions.assertThat(registry.get(OverdueLoanScanner.NOTICES_METRIC).counter().count()).isEqualTo(3);
+        Assertions.assertThat(registry.get(OverdueLoanScanner.SCAN_METRIC).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should Not Record A Second Notice For The Same Loan")
+    public void shouldNotRecordSecondNoticeForSameLoan() {
+        // cenario
+        createLoan("001", TODAY.minusDays(30), false);
+        createLoan("002", TODAY.minusDays(20), false);
+        scanner.scan(TODAY.minusDays(1));
+
+        // acao
+        long scanned = scanner.scan(TODAY);
+
+        // verificacao
+        Assertions.assertThat(scanned).isEqualTo(2);
+        Assertions.assertThat(noticeRepository.findAll()).hasSize(2)
+                .allMatch(notice -> notice.getNoticeDate().equals(TODAY.minusDays(1)));
+        Assertions.assertThat(registry.get(OverdueLoanScanner.NOTICES_METRIC).counter().count()).isEqualTo(2);
+    }
+
+    private Loan createLoan(String isbn, LocalDate loanDate, boolean returned) {
+        Book book = entityManager.persist(Book.builder().isbn(isbn).title("Book " + isbn).author("Author").build());
+
+        return entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(loanDate)
+                .isReturned(returned).build());
+    }
+}